@@ -0,0 +1,77 @@
+package benchmarks;
+
+import context_free_acceptor.ContextFreeAcceptor;
+import org.openjdk.jmh.annotations.*;
+import parser.PDAParser;
+import pushdown_automaton.MinimalPDA;
+import pushdown_automaton.PDA;
+import symbols.Word;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the hand-written automata of Example2 ({@link PDA}) and Example4 ({@link MinimalPDA}) on the
+ * {@link Language#PALINDROME palindrome} language.
+ *
+ * @author Matthias Harzer
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AutomatonBenchmark {
+    public enum Automaton {
+        PDA {
+            @Override
+            ContextFreeAcceptor create() {
+                var parser = new PDAParser("z0", "#", "A", "B");
+                parser.add("z0, a, # -> z1, #A");
+                parser.add("z0, b, # -> z1, #B");
+                parser.add("z1, a, # -> z1, #A");
+                parser.add("z1, b, # -> z1, #B");
+                parser.add("z1, $, # -> z1, ε");
+                parser.add("z1, a, A -> z1, ε");
+                parser.add("z1, b, B -> z1, ε");
+                return parser.getPDA();
+            }
+        },
+        MINIMAL_PDA {
+            @Override
+            ContextFreeAcceptor create() {
+                var pda = new MinimalPDA("z0", "#");
+                pda.addFn("z0", "a", "#", "z1", "#A");
+                pda.addFn("z0", "b", "#", "z1", "#B");
+                pda.addFn("z1", "a", "#", "z1", "#A");
+                pda.addFn("z1", "b", "#", "z1", "#B");
+                pda.addFn("z1", "$", "#", "z1", "");
+                pda.addFn("z1", "a", "A", "z1", "");
+                pda.addFn("z1", "b", "B", "z1", "");
+                return pda;
+            }
+        };
+
+        abstract ContextFreeAcceptor create();
+    }
+
+    @Param
+    public Automaton automaton;
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int size;
+
+    private ContextFreeAcceptor acceptor;
+    private Word word;
+
+    @Setup
+    public void setup() {
+        acceptor = automaton.create();
+        word = acceptor.getAlphabet().parse(Language.PALINDROME.word(size));
+    }
+
+    @Benchmark
+    public boolean accepts() {
+        return acceptor.accepts(word);
+    }
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import grammar.ContextFreeGrammar;
+import grammar.acceptors.Engine;
+import org.openjdk.jmh.annotations.*;
+import symbols.Word;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ContextFreeGrammar#accepts(Word)} with every {@link Engine} on every {@link Language}.
+ * <p>
+ * Not every engine finishes on every language and size in reasonable time, e.g. CYK is cubic in the length of the
+ * word and the PDA engine explores all derivations of the ambiguous grammar. Restrict the parameters with
+ * <code>-p engine=EARLEY -p size=10,1000</code> when comparing engines.
+ *
+ * @author Matthias Harzer
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GrammarBenchmark {
+    @Param
+    public Language language;
+
+    @Param
+    public Engine engine;
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int size;
+
+    private ContextFreeGrammar grammar;
+    private Word word;
+
+    @Setup
+    public void setup() {
+        grammar = language.grammar();
+        grammar.setEngine(engine);
+        word = grammar.getAlphabet().parse(language.word(size));
+        // Build the acceptor outside of the measurement
+        grammar.getAcceptor();
+    }
+
+    @Benchmark
+    public boolean accepts() {
+        return grammar.accepts(word);
+    }
+}
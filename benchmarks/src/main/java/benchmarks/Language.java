@@ -0,0 +1,78 @@
+package benchmarks;
+
+import grammar.ContextFreeGrammar;
+import parser.CFGParser;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The languages of the benchmarks, each with a grammar and a generator for words of the language of a given size.
+ *
+ * @author Matthias Harzer
+ */
+public enum Language {
+    /**
+     * Any word w ∈ {a, b}+ followed by a $ followed by the reverse of w, the language of Example1, Example2 and
+     * Example4.
+     */
+    PALINDROME(new String[]{"S"}, "S -> aSa | bSb | a$a | b$b") {
+        @Override
+        public String word(int size) {
+            Random random = new Random(size);
+            StringBuilder w = new StringBuilder();
+            for (int i = 0; i < Math.max(1, (size - 1) / 2); i++) {
+                w.append(random.nextBoolean() ? 'a' : 'b');
+            }
+            return w + "$" + new StringBuilder(w).reverse();
+        }
+    },
+    /**
+     * The language <code>{a^m b^(m+n) c^n | n >= 1}</code> of Example3.
+     */
+    ABC(new String[]{"S", "A", "B"}, "S -> AB", "A -> aAb | ab", "B -> bBc | bc") {
+        @Override
+        public String word(int size) {
+            int m = Math.max(1, size / 4);
+            int n = Math.max(1, size / 4);
+            return "a".repeat(m) + "b".repeat(m + n) + "c".repeat(n);
+        }
+    },
+    /**
+     * The highly ambiguous grammar <code>S -> SS | a</code>. Every word a^n has a Catalan number of derivations.
+     */
+    AMBIGUOUS(new String[]{"S"}, "S -> SS | a") {
+        @Override
+        public String word(int size) {
+            return "a".repeat(size);
+        }
+    };
+
+    // The start variable first
+    private final String[] variables;
+    private final String[] productions;
+
+    Language(String[] variables, String... productions) {
+        this.variables = variables;
+        this.productions = productions;
+    }
+
+    /**
+     * @return a new grammar of the language
+     */
+    public ContextFreeGrammar grammar() {
+        CFGParser parser = new CFGParser(variables[0], Arrays.copyOfRange(variables, 1, variables.length));
+        for (String production : productions) {
+            parser.add(production);
+        }
+        return parser.getGrammar();
+    }
+
+    /**
+     * Generates a word of the language. The word is the same for every call with the same size.
+     *
+     * @param size the approximate length of the word
+     * @return a word of the language
+     */
+    public abstract String word(int size);
+}
@@ -0,0 +1,54 @@
+package context_free_acceptor;
+
+import symbols.SymbolTable;
+import symbols.Word;
+
+import java.util.Arrays;
+
+/**
+ * The fallback {@link Recognizer} for acceptors that need the whole word: collects the symbols and calls
+ * {@link ContextFreeAcceptor#accepts(symbols.Word)} on the input read so far. The verdict is kept until the next
+ * symbol is pushed, so asking again does not run the acceptor again.
+ *
+ * @author Matthias Harzer
+ */
+final class BufferingRecognizer implements Recognizer {
+    private final ContextFreeAcceptor acceptor;
+    private int[] codes = new int[64];
+    private int length = 0;
+    private boolean rejected = false;
+    // The length of the input the verdict belongs to, or -1
+    private int decided = -1;
+    private boolean accepted;
+
+    BufferingRecognizer(ContextFreeAcceptor acceptor) {
+        this.acceptor = acceptor;
+    }
+
+    @Override
+    public boolean push(int terminal) {
+        if (rejected) return false;
+        if (terminal < 0) {
+            rejected = true;
+            return false;
+        }
+        if (length == codes.length) codes = Arrays.copyOf(codes, length * 2);
+        codes[length++] = SymbolTable.terminalCode(terminal);
+        return true;
+    }
+
+    @Override
+    public boolean isViablePrefix() {
+        return !rejected;
+    }
+
+    @Override
+    public boolean isAccepted() {
+        if (rejected) return false;
+        if (decided != length) {
+            accepted = acceptor.accepts(Word.ofCodes(Arrays.copyOf(codes, length)));
+            decided = length;
+        }
+        return accepted;
+    }
+}
@@ -3,8 +3,28 @@ package context_free_acceptor;
 import grammar.Alphabet;
 import symbols.Word;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
+
 /**
  * A context-free acceptor can accept a {@link Word} over a {@link Alphabet} that is defined by a {@link grammar.ContextFreeGrammar}.
+ * <p>
+ * Implementations must allow concurrent calls of {@link #accepts(Word)}, so the batch methods
+ * {@link #acceptsAll(List, Executor)} and {@link #acceptsAll(Stream, Executor)} can spread the words over several threads.
+ * <p>
+ * Large inputs can be streamed from a {@link Reader} or a {@link ReadableByteChannel}. The characters are read in a
+ * bounded buffer and pushed one at a time into a {@link Recognizer}, so no {@link Word} is built.
  *
  * @author Matthias Harzer
  */
@@ -30,4 +50,158 @@ public interface ContextFreeAcceptor {
     default boolean accepts(String input) {
         return accepts(getAlphabet().parse(input));
     }
+
+    /**
+     * Starts a session that reads the input one symbol at a time. Acceptors that can not decide without the whole
+     * word collect the symbols and call {@link #accepts(Word)} when asked, which is the default.
+     *
+     * @return a new recognizer for one input
+     */
+    default Recognizer recognizer() {
+        return new BufferingRecognizer(this);
+    }
+
+    /**
+     * Accepts a sequence of characters, each code point of which is a symbol of the alphabet, without building a
+     * {@link Word}.
+     *
+     * @param input the characters to be accepted
+     * @return true if the input is accepted by the acceptor
+     */
+    default boolean accepts(CharSequence input) {
+        Alphabet alphabet = getAlphabet();
+        Recognizer recognizer = recognizer();
+        for (int i = 0; i < input.length(); ) {
+            int codePoint = Character.codePointAt(input, i);
+            i += Character.charCount(codePoint);
+            if (!recognizer.push(alphabet.terminalId(codePoint))) return false;
+        }
+        return recognizer.isAccepted();
+    }
+
+    /**
+     * Reads the characters of the reader until the end and accepts them like {@link #accepts(CharSequence)}.
+     * Reading stops early as soon as no word with the prefix read so far can be accepted. The reader is not closed.
+     *
+     * @param reader the characters to be accepted
+     * @return true if the input is accepted by the acceptor
+     * @throws IOException if the reader fails
+     */
+    default boolean accepts(Reader reader) throws IOException {
+        Alphabet alphabet = getAlphabet();
+        Recognizer recognizer = recognizer();
+        char[] buffer = new char[8192];
+        // A high surrogate at the end of the buffer, completed by the first char of the next one
+        int high = -1;
+        for (int n = reader.read(buffer); n >= 0; n = reader.read(buffer)) {
+            for (int i = 0; i < n; i++) {
+                char c = buffer[i];
+                int codePoint;
+                if (high >= 0 && Character.isLowSurrogate(c)) {
+                    codePoint = Character.toCodePoint((char) high, c);
+                } else {
+                    if (high >= 0 && !recognizer.push(alphabet.terminalId(high))) return false;
+                    if (Character.isHighSurrogate(c)) {
+                        high = c;
+                        continue;
+                    }
+                    codePoint = c;
+                }
+                high = -1;
+                if (!recognizer.push(alphabet.terminalId(codePoint))) return false;
+            }
+        }
+        if (high >= 0 && !recognizer.push(alphabet.terminalId(high))) return false;
+        return recognizer.isAccepted();
+    }
+
+    /**
+     * Decodes the bytes of the channel as UTF-8 and accepts the characters like {@link #accepts(Reader)}. The
+     * channel is not closed.
+     *
+     * @param channel the UTF-8 encoded input to be accepted
+     * @return true if the input is accepted by the acceptor
+     * @throws IOException if the channel fails or the input is not valid UTF-8
+     */
+    default boolean accepts(ReadableByteChannel channel) throws IOException {
+        return accepts(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), 8192));
+    }
+
+    /**
+     * Accepts all given words in parallel on the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param inputs the words to be accepted
+     * @return a bitmap in input order, bit i is set if the i-th word is accepted
+     */
+    default BitSet acceptsAll(List<Word> inputs) {
+        return acceptsAll(inputs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Accepts all given words in parallel on the given executor, e.g. a dedicated {@link ForkJoinPool} or a
+     * virtual thread executor.
+     *
+     * @param inputs the words to be accepted
+     * @param executor the executor that runs the work
+     * @return a bitmap in input order, bit i is set if the i-th word is accepted
+     */
+    default BitSet acceptsAll(List<Word> inputs, Executor executor) {
+        Word[] words = inputs.toArray(Word[]::new);
+        return acceptsAll(words.length, i -> accepts(words[i]), executor);
+    }
+
+    /**
+     * Accepts all given strings in parallel on the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param inputs the strings to be accepted
+     * @return a bitmap in input order, bit i is set if the i-th string is accepted
+     */
+    default BitSet acceptsAll(Stream<String> inputs) {
+        return acceptsAll(inputs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Accepts all given strings in parallel on the given executor, e.g. a dedicated {@link ForkJoinPool} or a
+     * virtual thread executor.
+     *
+     * @param inputs the strings to be accepted
+     * @param executor the executor that runs the work
+     * @return a bitmap in input order, bit i is set if the i-th string is accepted
+     */
+    default BitSet acceptsAll(Stream<String> inputs, Executor executor) {
+        String[] strings = inputs.toArray(String[]::new);
+        return acceptsAll(strings.length, i -> accepts(strings[i]), executor);
+    }
+
+    /**
+     * Splits the indices into ranges of about the same size, so even a small batch of expensive inputs runs on several
+     * threads. Every task writes only its own range of the results, the bitmap is built after all of them finished.
+     */
+    private static BitSet acceptsAll(int size, IntPredicate accepts, Executor executor) {
+        boolean[] results = new boolean[size];
+        int chunks = Math.min(size, Runtime.getRuntime().availableProcessors() * 4);
+
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[chunks];
+        for (int c = 0; c < chunks; c++) {
+            int from = (int) ((long) size * c / chunks);
+            int to = (int) ((long) size * (c + 1) / chunks);
+            tasks[c] = CompletableFuture.runAsync(() -> {
+                for (int i = from; i < to; i++) results[i] = accepts.test(i);
+            }, executor);
+        }
+
+        try {
+            CompletableFuture.allOf(tasks).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+
+        BitSet accepted = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (results[i]) accepted.set(i);
+        }
+        return accepted;
+    }
 }
@@ -0,0 +1,54 @@
+package context_free_acceptor;
+
+import symbols.SymbolTable;
+import symbols.TerminalSymbol;
+
+/**
+ * A session that reads the input of a {@link ContextFreeAcceptor} one symbol at a time, so the input never has to be
+ * materialized as a {@link symbols.Word}. After every symbol, the session can tell whether the input read so far is
+ * accepted and whether any continuation of it can still be accepted, e.g. to validate user input while it is typed.
+ * <p>
+ * The engines keep their state between the symbols, so a push only costs the work of one step. Engines that can not
+ * decide without the whole word buffer the symbols and run {@link ContextFreeAcceptor#accepts(symbols.Word)} when
+ * {@link #isAccepted()} is called after a new symbol; they can not tell whether a prefix is viable.
+ * <p>
+ * A recognizer belongs to a single run and is not thread-safe. Get a new one from
+ * {@link ContextFreeAcceptor#recognizer()} for every input.
+ *
+ * @author Matthias Harzer
+ */
+public interface Recognizer {
+    /**
+     * Reads the next symbol of the input.
+     *
+     * @param terminal the id of the terminal symbol in {@link SymbolTable#TERMINALS}, or -1 for a symbol that is not
+     *                 in the alphabet
+     * @return false if no word that starts with the input read so far can be accepted. The session stays rejecting
+     * then.
+     */
+    boolean push(int terminal);
+
+    /**
+     * Reads the next symbol of the input.
+     *
+     * @param symbol the terminal symbol
+     * @return false if no word that starts with the input read so far can be accepted
+     * @see #push(int)
+     */
+    default boolean push(TerminalSymbol symbol) {
+        return push(symbol.id);
+    }
+
+    /**
+     * Checks if the input read so far is a prefix of an accepted word, including the input itself. Buffering engines
+     * only know that a prefix is not viable once a symbol outside the alphabet was read.
+     *
+     * @return true if a continuation of the input can still be accepted
+     */
+    boolean isViablePrefix();
+
+    /**
+     * @return true if the input read so far is accepted
+     */
+    boolean isAccepted();
+}
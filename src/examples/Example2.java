@@ -1,7 +1,15 @@
 package examples;
 
+import grammar.ContextFreeGrammar;
 import parser.CFGParser;
 import parser.PDAParser;
+import pushdown_automaton.PDA;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * This example accepts the same language as Example1, but uses the parser classes.
@@ -18,6 +26,21 @@ public class Example2 {
         System.out.println("Testing CFG from CFGParser:");
         Example1.testCFA(cfg3);
 
+        // Large grammars are loaded from a file or reader, one production per line with the symbols separated by spaces
+        var loader = new CFGParser("Word");
+        try {
+            loader.load(new StringReader("""
+                    Word -> a Word a | b Word b
+                    Word -> a $ a | b $ b
+                    """));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        System.out.println("----");
+        System.out.println("Testing CFG from CFGParser.load:");
+        Example1.testCFA(loader.getGrammar());
+
         var pdaParser = new PDAParser("z0", "#", "A", "B"); // Define the start state, the start symbol of the stack and all stack symbols
         pdaParser.add("z0, a, # -> z1, #A");
         pdaParser.add("z0, b, # -> z1, #B");
@@ -29,7 +52,58 @@ public class Example2 {
         var pda3 = pdaParser.getPDA();
 
         System.out.println("----");
-        System.out.println("Testing PDA from PDAParser:");
+        // The automaton is deterministic, so accepts follows a single path with a primitive stack
+        System.out.println("Testing PDA from PDAParser (deterministic: " + pda3.isDeterministic() + "):");
         Example1.testCFA(pda3);
+
+        System.out.println("----");
+        // A deterministic automaton can also be compiled into bytecode, the switches on its states run without a table
+        System.out.println("Testing compiled PDA from PDAParser:");
+        Example1.testCFA(pda3.compile());
+
+        // The same automaton with multi-character stack symbols, loaded into a transition table line by line
+        var pdaLoader = new PDAParser("z0", "#", "Ta", "Tb");
+        try {
+            pdaLoader.load(new StringReader("""
+                    z0, a, # -> z1, # Ta
+                    z0, b, # -> z1, # Tb
+                    z1, a, # -> z1, # Ta
+                    z1, b, # -> z1, # Tb
+                    z1, $, # -> z1, ε
+
+                    z1, a, Ta -> z1, ε
+                    z1, b, Tb -> z1, ε
+                    """));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        System.out.println("----");
+        System.out.println("Testing PDA from PDAParser.load:");
+        Example1.testCFA(pdaLoader.getPDA());
+
+        // The compiled forms can be written to binary files, which are read again without parsing or compiling
+        ContextFreeGrammar cfg4;
+        PDA pda4;
+        try {
+            Path grammarFile = Files.createTempFile("grammar", ".bin");
+            Path pdaFile = Files.createTempFile("pda", ".bin");
+            loader.getGrammar().write(grammarFile);
+            pdaLoader.getPDA().write(pdaFile);
+            cfg4 = ContextFreeGrammar.read(grammarFile);
+            pda4 = PDA.read(pdaFile);
+            Files.delete(grammarFile);
+            Files.delete(pdaFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        System.out.println("----");
+        System.out.println("Testing CFG from a binary file:");
+        Example1.testCFA(cfg4);
+
+        System.out.println("----");
+        System.out.println("Testing PDA from a binary file:");
+        Example1.testCFA(pda4);
     }
 }
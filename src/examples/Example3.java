@@ -1,5 +1,6 @@
 package examples;
 
+import grammar.acceptors.CYKAcceptor;
 import parser.CFGParser;
 
 
@@ -21,5 +22,15 @@ public class Example3 {
                 new TestCFA("aabbbc", true),
                 new TestCFA("aabcc", false)
         );
+
+        System.out.println("----");
+        System.out.println("Testing CYKAcceptor:");
+        var cyk = new CYKAcceptor(cfg); // runs in cubic time, also on long words
+        TestCFA.testCFA(cyk,
+                new TestCFA("abbc", true),
+                new TestCFA("aabbbc", true),
+                new TestCFA("aabcc", false),
+                new TestCFA("a".repeat(40) + "b".repeat(100) + "c".repeat(60), true)
+        );
     }
 }
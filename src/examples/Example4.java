@@ -1,6 +1,13 @@
 package examples;
 
+import parser.CFGParser;
+import pushdown_automaton.AcceptOptions;
+import pushdown_automaton.AcceptResult;
 import pushdown_automaton.MinimalPDA;
+import pushdown_automaton.PDA;
+
+import java.time.Duration;
+import java.util.Random;
 
 /**
  * This example accepts the same language as Example1, but uses a MinimalPDA instead of a PDA.
@@ -18,5 +25,36 @@ public class Example4 {
 
         System.out.println("Testing PDA from MinimalPDA:");
         Example1.testCFA(pda);
+
+        // Pushes A spontaneously without end, so the search for a word that is not accepted never stops on its own
+        var looping = new MinimalPDA("z0", "#");
+        looping.addFn("z0", "", "#", "z0", "A#");
+        looping.addFn("z0", "", "A", "z0", "AA");
+        looping.addFn("z0", "a", "A", "z0", "");
+        looping.addFn("z0", "b", "#", "z0", "");
+
+        System.out.println("----");
+        System.out.println("Testing MinimalPDA with a budget:");
+        var budget = AcceptOptions.UNLIMITED.withMaxConfigurations(10_000);
+        TestCFA.testResult("ab", looping.accepts("ab", budget), AcceptResult.ACCEPT);
+        TestCFA.testResult("aa", looping.accepts("aa", budget), AcceptResult.exceeded(AcceptResult.Limit.CONFIGURATIONS));
+        TestCFA.testResult("aa with a stack depth of 8", looping.accepts("aa", AcceptOptions.UNLIMITED.withMaxStackDepth(8)),
+                AcceptResult.exceeded(AcceptResult.Limit.STACK_DEPTH));
+        TestCFA.testResult("aa within 50ms", looping.accepts("aa", AcceptOptions.UNLIMITED.withTimeout(Duration.ofMillis(50))),
+                AcceptResult.exceeded(AcceptResult.Limit.DEADLINE));
+
+        // A long palindrome keeps half of its length on the stack. Every configuration of the search is checked in
+        // constant time against the remaining input, so a deep stack does not make the budget run out.
+        var palindromes = new CFGParser("S");
+        palindromes.add("S -> aSa | bSb | a | b | c");
+        PDA deep = PDA.fromCFG(palindromes.getGrammar());
+        // A random half, periodic words would be palindromes around many centers
+        var random = new Random(42);
+        StringBuilder half = new StringBuilder();
+        for (int i = 0; i < 8_000; i++) half.append(random.nextBoolean() ? 'a' : 'b');
+        String palindrome = half + "c" + new StringBuilder(half).reverse();
+        var deepBudget = AcceptOptions.UNLIMITED.withMaxConfigurations(200_000).withTimeout(Duration.ofSeconds(2));
+        TestCFA.testResult("palindrome of length " + palindrome.length() + " within 2s",
+                deep.accepts(deep.getAlphabet().parse(palindrome), deepBudget), AcceptResult.ACCEPT);
     }
 }
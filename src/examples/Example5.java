@@ -0,0 +1,75 @@
+package examples;
+
+import grammar.acceptors.Engine;
+import parser.CFGParser;
+
+/**
+ * This example accepts arithmetic expressions over <code>x</code> with a left-recursive grammar and epsilon
+ * productions, which the default {@link Engine#PDA PDA} engine cannot handle correctly unless the grammar is
+ * {@link grammar.ContextFreeGrammar#normalize() normalized} first.
+ * <br />
+ * The grammar is described by the following rules:
+ * <code>
+ * E -> E+T | T
+ * T -> T*F | F
+ * F -> (E) | xN
+ * N -> 'N | ε
+ * </code>
+ */
+public class Example5 {
+    public static void main(String[] args) {
+        var cfgParser = new CFGParser("E", "T", "F", "N");
+        cfgParser.add("E -> E+T | T");
+        cfgParser.add("T -> T*F | F");
+        cfgParser.add("F -> (E) | xN");
+        cfgParser.add("N -> 'N | ε");
+
+        var cfg = cfgParser.getGrammar();
+        cfg.setEngine(Engine.EARLEY);
+
+        TestCFA[] tests = {
+                new TestCFA("x", true),
+                new TestCFA("x'+x''*x", true),
+                new TestCFA("(x+x)*(x*x')", true),
+                new TestCFA("x+", false),
+                new TestCFA("(x+x", false),
+                new TestCFA("'x", false),
+                new TestCFA("", false)
+        };
+
+        System.out.println("Testing CFG with the Earley engine:");
+        TestCFA.testCFA(cfg, tests);
+
+        System.out.println("Testing CFG with the Earley engine in one parallel batch:");
+        TestCFA.testAllCFA(cfg, tests);
+
+        // A batch of fewer than 64 inputs is still split into several tasks
+        System.out.println("Testing CFG with the Earley engine in a small batch on several threads:");
+        TestCFA.testAllCFA(cfg, 2, tests);
+
+        // After normalization only the start variable can derive ε, and every other stack symbol of the PDA consumes
+        // input, so the PDA engine works
+        var normalized = cfg.normalize();
+        normalized.setEngine(Engine.PDA);
+
+        System.out.println("Testing the normalized CFG with the PDA engine:");
+        TestCFA.testCFA(normalized, tests);
+
+        // If the start variable is nullable, the normalized grammar keeps S -> ε and the PDA engine accepts the empty word
+        var nullableParser = new CFGParser("S", "A");
+        nullableParser.add("S -> aSb | A");
+        nullableParser.add("A -> ε");
+
+        var nullable = nullableParser.getGrammar().normalize();
+        nullable.setEngine(Engine.PDA);
+
+        System.out.println("Testing a normalized CFG with a nullable start variable with the PDA engine:");
+        TestCFA.testCFA(nullable, new TestCFA[]{
+                new TestCFA("", true),
+                new TestCFA("ab", true),
+                new TestCFA("aabb", true),
+                new TestCFA("a", false),
+                new TestCFA("abb", false)
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package examples;
+
+import grammar.acceptors.Engine;
+import grammar.acceptors.LL1Acceptor;
+import parser.CFGParser;
+
+/**
+ * This example accepts the same arithmetic expressions as Example5 with an LL(1) grammar, which the
+ * {@link Engine#LL1 LL(1)} engine accepts in linear time.
+ * <br />
+ * The grammar is described by the following rules:
+ * <code>
+ * E -> TX
+ * X -> +TX | ε
+ * T -> FY
+ * Y -> *FY | ε
+ * F -> (E) | xN
+ * N -> 'N | ε
+ * </code>
+ * The left-recursive grammar of Example5 is not LL(1), the engine reports the conflicts and falls back to Earley.
+ */
+public class Example6 {
+    public static void main(String[] args) {
+        var cfgParser = new CFGParser("E", "X", "T", "Y", "F", "N");
+        cfgParser.add("E -> TX");
+        cfgParser.add("X -> +TX | ε");
+        cfgParser.add("T -> FY");
+        cfgParser.add("Y -> *FY | ε");
+        cfgParser.add("F -> (E) | xN");
+        cfgParser.add("N -> 'N | ε");
+
+        var cfg = cfgParser.getGrammar();
+        cfg.setEngine(Engine.LL1);
+
+        TestCFA[] tests = {
+                new TestCFA("x", true),
+                new TestCFA("x'+x''*x", true),
+                new TestCFA("(x+x)*(x*x')", true),
+                new TestCFA("x+", false),
+                new TestCFA("(x+x", false),
+                new TestCFA("'x", false)
+        };
+
+        System.out.println("Testing CFG with the LL(1) engine:");
+        TestCFA.testCFA(cfg, tests);
+
+        System.out.println("Testing a long word with the LL(1) engine:");
+        TestCFA.test(cfg, "(x+x)*".repeat(20) + "x", true);
+
+        var leftRecursive = new CFGParser("E", "T", "F");
+        leftRecursive.add("E -> E+T | T");
+        leftRecursive.add("T -> T*F | F");
+        leftRecursive.add("F -> (E) | x");
+
+        System.out.println("Conflicts of the left-recursive grammar:");
+        for (LL1Acceptor.Conflict conflict : new LL1Acceptor(leftRecursive.getGrammar()).getConflicts()) {
+            System.out.println(conflict);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package examples;
+
+import grammar.acceptors.Engine;
+import grammar.acceptors.LALR1Acceptor;
+import parser.CFGParser;
+
+import java.io.Reader;
+
+/**
+ * This example accepts the arithmetic expressions of Example5 with the {@link Engine#LALR1 LALR(1)} engine, which
+ * handles the left recursion of the grammar in linear time.
+ * <br />
+ * The grammar is described by the following rules:
+ * <code>
+ * E -> E+T | T
+ * T -> T*F | F
+ * F -> (E) | xN
+ * N -> 'N | ε
+ * </code>
+ * The ambiguous grammar <code>S -> SS | a</code> is not LALR(1), the engine reports the conflicts and falls back to
+ * Earley. The {@link Engine#GLR GLR} engine runs the same automaton on all conflicting paths at once.
+ * <br />
+ * Long inputs can be streamed from a {@link Reader}, the LALR(1) engine then only keeps its stack in memory.
+ */
+public class Example7 {
+    public static void main(String[] args) {
+        var cfgParser = new CFGParser("E", "T", "F", "N");
+        cfgParser.add("E -> E+T | T");
+        cfgParser.add("T -> T*F | F");
+        cfgParser.add("F -> (E) | xN");
+        cfgParser.add("N -> 'N | ε");
+
+        var cfg = cfgParser.getGrammar();
+        cfg.setEngine(Engine.LALR1);
+
+        System.out.println("Testing CFG with the LALR(1) engine:");
+        TestCFA.testCFA(cfg,
+                new TestCFA("x", true),
+                new TestCFA("x'+x''*x", true),
+                new TestCFA("(x+x)*(x*x')", true),
+                new TestCFA("x+", false),
+                new TestCFA("(x+x", false),
+                new TestCFA("'x", false)
+        );
+
+        System.out.println("Testing a long word with the LALR(1) engine:");
+        TestCFA.test(cfg, "(x+x)*".repeat(20) + "x", true);
+
+        System.out.println("Streaming a long word with the LALR(1) engine:");
+        TestCFA.test(cfg, "x+x+...+x (10^7 characters)", new RepeatingReader("x+", 5_000_000, "x"), true);
+        TestCFA.test(cfg, "x+x+...+x+ (10^7 characters)", new RepeatingReader("x+", 5_000_000, ""), false);
+
+        var ambiguous = new CFGParser("S");
+        ambiguous.add("S -> SS | a");
+
+        System.out.println("Conflicts of the ambiguous grammar:");
+        for (LALR1Acceptor.Conflict conflict : new LALR1Acceptor(ambiguous.getGrammar()).getConflicts()) {
+            System.out.println(conflict);
+        }
+
+        var ambiguousCfg = ambiguous.getGrammar();
+        ambiguousCfg.setEngine(Engine.GLR);
+
+        System.out.println("Testing the ambiguous CFG with the GLR engine:");
+        TestCFA.testCFA(ambiguousCfg,
+                new TestCFA("a", true),
+                new TestCFA("a".repeat(100), true),
+                new TestCFA("", false),
+                new TestCFA("aab", false)
+        );
+    }
+
+    /**
+     * Reads a pattern a number of times, followed by a suffix, without holding the whole input in memory.
+     */
+    private static class RepeatingReader extends Reader {
+        private final String pattern;
+        private final String suffix;
+        private long remaining;
+        private int index = 0;
+
+        RepeatingReader(String pattern, long times, String suffix) {
+            this.pattern = pattern;
+            this.suffix = suffix;
+            this.remaining = pattern.length() * times + suffix.length();
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (remaining == 0) return -1;
+            int n = (int) Math.min(length, remaining);
+            for (int i = 0; i < n; i++, remaining--) {
+                buffer[offset + i] = remaining > suffix.length()
+                        ? pattern.charAt(index++ % pattern.length())
+                        : suffix.charAt(suffix.length() - (int) remaining);
+            }
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
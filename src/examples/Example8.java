@@ -0,0 +1,41 @@
+package examples;
+
+import grammar.acceptors.Engine;
+import parser.CFGParser;
+
+/**
+ * This example validates arithmetic expressions while they are typed, with an incremental
+ * {@link context_free_acceptor.Recognizer session} that tells after every symbol whether the input can still become an
+ * accepted expression.
+ * <br />
+ * The grammar is described by the following rules:
+ * <code>
+ * E -> E+T | T
+ * T -> T*F | F
+ * F -> (E) | x
+ * </code>
+ * The {@link Engine#EARLEY Earley} session extends its chart by one set per symbol. The {@link Engine#PDA PDA} session
+ * keeps the frontier of all reachable configurations, which stays finite even though the left recursion lets the stack
+ * grow without reading input.
+ */
+public class Example8 {
+    public static void main(String[] args) {
+        var cfgParser = new CFGParser("E", "T", "F");
+        cfgParser.add("E -> E+T | T");
+        cfgParser.add("T -> T*F | F");
+        cfgParser.add("F -> (E) | x");
+
+        var cfg = cfgParser.getGrammar();
+
+        for (Engine engine : new Engine[]{Engine.EARLEY, Engine.PDA}) {
+            cfg.setEngine(engine);
+            System.out.println("Typing expressions with the " + engine + " engine:");
+            TestCFA.testSession(cfg, "x", "v", true);
+            TestCFA.testSession(cfg, "(x+x)*x", "vvvvvvv", true);
+            TestCFA.testSession(cfg, "((x*", "vvvv", false);
+            TestCFA.testSession(cfg, "x+*x", "vv--", false);
+            TestCFA.testSession(cfg, "x)x", "v--", false);
+            TestCFA.testSession(cfg, "xy", "v-", false);
+        }
+    }
+}
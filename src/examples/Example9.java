@@ -0,0 +1,30 @@
+package examples;
+
+import parser.CFGParser;
+
+/**
+ * This example parses words of an ambiguous grammar into a {@link grammar.acceptors.ParseForest} and enumerates their
+ * parse trees.
+ * <br />
+ * The grammar is described by the following rules:
+ * <code>
+ * E -> E+E | E*E | (E) | x
+ * </code>
+ * Without precedence, <code>x+x*x</code> has two trees. A sum of n + 1 x's has as many trees as the n-th Catalan
+ * number, but the forest shares its nodes and stays polynomial; the trees are only built while they are counted.
+ */
+public class Example9 {
+    public static void main(String[] args) {
+        var cfgParser = new CFGParser("E");
+        cfgParser.add("E -> E+E | E*E | (E) | x");
+
+        var cfg = cfgParser.getGrammar();
+
+        System.out.println("Parsing with an ambiguous grammar:");
+        TestCFA.testParse(cfg, "x", 1);
+        TestCFA.testParse(cfg, "(x+x)*x", 1);
+        TestCFA.testParse(cfg, "x+x*x", 2);
+        TestCFA.testParse(cfg, "x+x+x+x+x+x+x+x+x+x+x", 16796);
+        TestCFA.testParse(cfg, "x+*x", 0);
+    }
+}
@@ -1,8 +1,23 @@
 package examples;
 
 import context_free_acceptor.ContextFreeAcceptor;
+import context_free_acceptor.Recognizer;
+import grammar.ContextFreeGrammar;
+import grammar.acceptors.ParseForest;
+import grammar.acceptors.ParseTree;
+import pushdown_automaton.AcceptResult;
+import symbols.TerminalSymbol;
 import symbols.Word;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * A simple test class for {@link ContextFreeAcceptor ContextFreeAcceptors}.
  *
@@ -38,6 +53,74 @@ public record TestCFA(String input, boolean expected) {
         printOutput(actual, expected, word, end - start);
     }
 
+    /**
+     * Streams the input from the reader with {@link ContextFreeAcceptor#accepts(Reader)}.
+     *
+     * @param description the description of the input in the output
+     */
+    public static void test(ContextFreeAcceptor cfa, String description, Reader reader, boolean expected) {
+        long start = System.currentTimeMillis();
+        boolean actual;
+        try {
+            actual = cfa.accepts(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long end = System.currentTimeMillis();
+        printOutput(actual, expected, description, end - start);
+    }
+
+    /**
+     * Types the input symbol by symbol into a {@link Recognizer} session and checks its verdict after every symbol.
+     *
+     * @param viable the expected {@link Recognizer#isViablePrefix()} after every prefix, as a string of 'v' for a viable
+     *               prefix and '-' otherwise
+     */
+    public static void testSession(ContextFreeAcceptor cfa, String input, String viable, boolean expected) {
+        Recognizer session = cfa.recognizer();
+        StringBuilder actualViable = new StringBuilder();
+        for (char c : input.toCharArray()) {
+            TerminalSymbol symbol = cfa.getAlphabet().getSymbol(c + "");
+            if (symbol == null) session.push(-1);
+            else session.push(symbol);
+            actualViable.append(session.isViablePrefix() ? 'v' : '-');
+        }
+        boolean actual = session.isAccepted();
+
+        String status = actual == expected && actualViable.toString().equals(viable) ? ANSI_GREEN + "PASSED" : ANSI_RED + "FAILED";
+        System.out.println("[" + status + ANSI_RESET + "] " + input + " -> " + actualViable + " " + actual + " (expected: " + viable + " " + expected + ")");
+    }
+
+    /**
+     * Parses the input with {@link ContextFreeGrammar#parse(Word)} and counts its derivations, printing the first ones.
+     *
+     * @param expected the expected number of parse trees, 0 if the input is not accepted
+     */
+    public static void testParse(ContextFreeGrammar cfg, String input, int expected) {
+        long start = System.currentTimeMillis();
+        ParseForest forest = cfg.parse(cfg.getAlphabet().parse(input));
+        int actual = 0;
+        if (forest != null) {
+            for (ParseTree tree : forest) {
+                if (actual++ < 3) System.out.println("  " + tree);
+            }
+        }
+        long end = System.currentTimeMillis();
+
+        String status = actual == expected ? ANSI_GREEN + "PASSED" : ANSI_RED + "FAILED";
+        System.out.println("[" + status + ANSI_RESET + "] " + input + " -> " + actual + " trees (expected: " + expected + ") (" + (end - start) + "ms)");
+    }
+
+    /**
+     * Checks the result of an acceptance call with {@link pushdown_automaton.AcceptOptions}.
+     *
+     * @param description the description of the call in the output
+     */
+    public static void testResult(String description, AcceptResult actual, AcceptResult expected) {
+        String status = actual.equals(expected) ? ANSI_GREEN + "PASSED" : ANSI_RED + "FAILED";
+        System.out.println("[" + status + ANSI_RESET + "] " + description + " -> " + actual + " (expected: " + expected + ")");
+    }
+
     private static void printOutput(boolean actual, boolean expected, String input, long time) {
         String out;
         if (actual == expected) {
@@ -59,4 +142,40 @@ public record TestCFA(String input, boolean expected) {
             }
         }
     }
+
+    /**
+     * Runs all tests in one parallel batch with {@link ContextFreeAcceptor#acceptsAll(java.util.stream.Stream)}.
+     */
+    public static void testAllCFA(ContextFreeAcceptor cfa, TestCFA... tests) {
+        long start = System.currentTimeMillis();
+        BitSet accepted = cfa.acceptsAll(Arrays.stream(tests).map(TestCFA::input));
+        long end = System.currentTimeMillis();
+        for (int i = 0; i < tests.length; i++) {
+            printOutput(accepted.get(i), tests[i].expected(), tests[i].input(), end - start);
+        }
+    }
+
+    /**
+     * Runs all tests in one parallel batch like {@link #testAllCFA(ContextFreeAcceptor, TestCFA...)}, on an executor
+     * that counts the tasks the batch is split into.
+     *
+     * @param minTasks the minimal number of tasks that is expected
+     */
+    public static void testAllCFA(ContextFreeAcceptor cfa, int minTasks, TestCFA... tests) {
+        AtomicInteger tasks = new AtomicInteger();
+        Executor counting = task -> {
+            tasks.incrementAndGet();
+            ForkJoinPool.commonPool().execute(task);
+        };
+
+        long start = System.currentTimeMillis();
+        BitSet accepted = cfa.acceptsAll(Arrays.stream(tests).map(TestCFA::input), counting);
+        long end = System.currentTimeMillis();
+        for (int i = 0; i < tests.length; i++) {
+            printOutput(accepted.get(i), tests[i].expected(), tests[i].input(), end - start);
+        }
+
+        String status = tasks.get() >= minTasks ? ANSI_GREEN + "PASSED" : ANSI_RED + "FAILED";
+        System.out.println("[" + status + ANSI_RESET + "] " + tests.length + " inputs -> " + tasks.get() + " tasks (expected: at least " + minTasks + ")");
+    }
 }
@@ -1,24 +1,38 @@
 package grammar;
 
-import symbols.Symbol;
+import symbols.SymbolTable;
 import symbols.TerminalSymbol;
 import symbols.Word;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * An alphabet is a finite set of {@link TerminalSymbol TerminalSymbols}.
+ * <p>
+ * The symbols are indexed by identifier. Symbols whose identifier is a single code point are also indexed by that
+ * code point, in a table by char for the Basic Multilingual Plane and in a hash map for the supplementary planes, so
+ * {@link #parse(String)} reads a string by code point without building a string per character.
  *
  * @author Matthias Harzer
  */
 public class Alphabet implements Iterable<TerminalSymbol> {
+    private static final int NONE = -1;
+
     private final List<TerminalSymbol> symbols;
+    private final Map<String, TerminalSymbol> byIdentifier = new HashMap<>();
+    // The terminal id of the single code point symbols, NONE if there is no such symbol
+    private int[] bmpIds = new int[0];
+    private final Map<Integer, Integer> supplementaryIds = new HashMap<>();
 
     public Alphabet(List<TerminalSymbol> symbols) {
-        this.symbols = symbols;
+        this.symbols = new ArrayList<>(symbols);
+        for (TerminalSymbol symbol : symbols) index(symbol);
     }
 
     public Alphabet() {
@@ -26,23 +40,54 @@ public class Alphabet implements Iterable<TerminalSymbol> {
     }
 
     public Alphabet(TerminalSymbol... symbols) {
-        this.symbols = new ArrayList<>();
-        this.symbols.addAll(Arrays.asList(symbols));
+        this(Arrays.asList(symbols));
     }
 
     public Alphabet(String... symbols) {
         this.symbols = new ArrayList<>();
         for (String s : symbols) {
-            this.symbols.add(new TerminalSymbol(s));
+            TerminalSymbol symbol = new TerminalSymbol(s);
+            this.symbols.add(symbol);
+            index(symbol);
+        }
+    }
+
+    private void index(TerminalSymbol symbol) {
+        String identifier = symbol.identifier;
+        byIdentifier.putIfAbsent(identifier, symbol);
+        if (identifier.isEmpty() || identifier.codePointCount(0, identifier.length()) != 1) return;
+
+        int codePoint = identifier.codePointAt(0);
+        if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            supplementaryIds.putIfAbsent(codePoint, symbol.id);
+            return;
+        }
+        if (codePoint >= bmpIds.length) {
+            int length = bmpIds.length;
+            bmpIds = Arrays.copyOf(bmpIds, Math.min(Math.max(codePoint + 1, length * 2), Character.MIN_SUPPLEMENTARY_CODE_POINT));
+            Arrays.fill(bmpIds, length, bmpIds.length, NONE);
         }
+        if (bmpIds[codePoint] == NONE) bmpIds[codePoint] = symbol.id;
     }
 
     public boolean hasSymbol(String identifier) {
-        return symbols.stream().anyMatch(s -> s.identifier.equals(identifier));
+        return byIdentifier.containsKey(identifier);
     }
 
     public TerminalSymbol getSymbol(String identifier) {
-        return symbols.stream().filter(s -> s.identifier.equals(identifier)).findFirst().orElse(null);
+        return byIdentifier.get(identifier);
+    }
+
+    /**
+     * Looks up the symbol whose identifier is the given code point.
+     *
+     * @param codePoint the code point of the identifier
+     * @return the {@link symbols.SymbolTable terminal id} of the symbol, or -1 if there is no such symbol
+     */
+    public int terminalId(int codePoint) {
+        if (codePoint >= 0 && codePoint < bmpIds.length) return bmpIds[codePoint];
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) return NONE;
+        return supplementaryIds.getOrDefault(codePoint, NONE);
     }
 
     public TerminalSymbol[] getSymbols() {
@@ -50,6 +95,7 @@ public class Alphabet implements Iterable<TerminalSymbol> {
     }
 
     public boolean add(TerminalSymbol... symbol) {
+        for (TerminalSymbol s : symbol) index(s);
         return symbols.addAll(Arrays.asList(symbol));
     }
 
@@ -57,32 +103,41 @@ public class Alphabet implements Iterable<TerminalSymbol> {
         if (hasSymbol(identifier)) return false;
         TerminalSymbol symbol = new TerminalSymbol(identifier);
 
+        index(symbol);
         return symbols.add(symbol);
     }
 
     /**
-     * Parses a string into a {@link Word}. If the string contains a symbol that is not in the alphabet, null is returned.
+     * Parses a string into a {@link Word}, one symbol per code point. If the string contains a symbol that is not in
+     * the alphabet, null is returned.
      *
      * @param input the string to parse
      * @return the parsed word
      */
     public Word parse(String input) {
-        Symbol[] word = new Symbol[input.length()];
-
-        for (int i = input.length() - 1; i >= 0; i--) {
-            TerminalSymbol symbol = getSymbol(input.charAt(i) + "");
-            if (symbol == null) return null;
-            word[i] = symbol;
+        int[] bmpIds = this.bmpIds;
+        int[] codes = new int[input.length()];
+        int length = 0;
+
+        for (int i = 0; i < input.length(); ) {
+            char c = input.charAt(i);
+            int id;
+            if (!Character.isSurrogate(c)) {
+                id = c < bmpIds.length ? bmpIds[c] : NONE;
+                i++;
+            } else {
+                int codePoint = input.codePointAt(i);
+                id = terminalId(codePoint);
+                i += Character.charCount(codePoint);
+            }
+            if (id == NONE) return null;
+            codes[length++] = SymbolTable.terminalCode(id);
         }
-        return new Word(word);
+        return Word.ofCodes(length == codes.length ? codes : Arrays.copyOf(codes, length));
     }
 
-//    public Word parse(String input) {
-//        return parse(input, true);
-//    }
-
     @Override
     public Iterator<TerminalSymbol> iterator() {
-        return symbols.iterator();
+        return Collections.unmodifiableList(symbols).iterator();
     }
 }
@@ -0,0 +1,309 @@
+package grammar;
+
+import symbols.BinaryFormat;
+import symbols.Symbol;
+import symbols.SymbolTable;
+import symbols.TerminalSymbol;
+import symbols.VariableSymbol;
+import symbols.Word;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, int-encoded snapshot of a {@link ContextFreeGrammar} that the grammar based acceptors work on.
+ * <p>
+ * All symbols share one dense id space: the terminals have the ids <code>0</code> to <code>terminals - 1</code>, the
+ * variables the ids <code>terminals</code> to <code>terminals + variables - 1</code>. The start variable is always
+ * the first variable. Every result of every {@link Production} becomes one rule with a left-hand side variable and
+ * an int array as right-hand side.
+ *
+ * @author Matthias Harzer
+ */
+public final class CompiledGrammar {
+    public final int terminals;
+    public final int variables;
+    private final TerminalSymbol[] terminalSymbols;
+    private final VariableSymbol[] variableSymbols;
+    // Local terminal id by global terminal id, -1 if the terminal is not part of the grammar
+    private final int[] terminalIndex;
+
+    private final int[] lhs;
+    private final int[][] rhs;
+    // The rules of variable v are rulesOf[v - terminals]
+    private final int[][] rulesOf;
+
+    private CompiledGrammar(TerminalSymbol[] terminalSymbols, VariableSymbol[] variableSymbols, int[] lhs, int[][] rhs) {
+        this.terminals = terminalSymbols.length;
+        this.variables = variableSymbols.length;
+        this.terminalSymbols = terminalSymbols;
+        this.variableSymbols = variableSymbols;
+        this.lhs = lhs;
+        this.rhs = rhs;
+
+        int maxId = Arrays.stream(terminalSymbols).mapToInt(t -> t.id).max().orElse(-1);
+        this.terminalIndex = new int[maxId + 1];
+        Arrays.fill(terminalIndex, -1);
+        for (int t = 0; t < terminals; t++) {
+            terminalIndex[terminalSymbols[t].id] = t;
+        }
+
+        int[] counts = new int[variables];
+        for (int l : lhs) counts[l - terminals]++;
+        this.rulesOf = new int[variables][];
+        for (int v = 0; v < variables; v++) rulesOf[v] = new int[counts[v]];
+        for (int r = lhs.length - 1; r >= 0; r--) {
+            int v = lhs[r] - terminals;
+            rulesOf[v][--counts[v]] = r;
+        }
+    }
+
+    /**
+     * Compiles the given grammar.
+     *
+     * @param grammar the grammar to compile
+     * @return the compiled grammar
+     */
+    public static CompiledGrammar compile(ContextFreeGrammar grammar) {
+        Map<TerminalSymbol, Integer> terminalIds = new LinkedHashMap<>();
+        Map<VariableSymbol, Integer> variableIds = new LinkedHashMap<>();
+        variableIds.put(grammar.start, 0);
+
+        for (Production production : grammar.getProductions().values()) {
+            variableIds.putIfAbsent(production.start, variableIds.size());
+            for (Word result : production.results) {
+                for (Symbol s : result.symbols()) {
+                    if (s instanceof TerminalSymbol t) terminalIds.putIfAbsent(t, terminalIds.size());
+                    else if (s instanceof VariableSymbol v) variableIds.putIfAbsent(v, variableIds.size());
+                }
+            }
+        }
+
+        int terminals = terminalIds.size();
+        List<Integer> lhs = new ArrayList<>();
+        List<int[]> rhs = new ArrayList<>();
+
+        for (Production production : grammar.getProductions().values()) {
+            int start = terminals + variableIds.get(production.start);
+            for (Word result : production.results) {
+                int[] symbols = Arrays.stream(result.symbols())
+                        .filter(s -> !s.isEpsilon())
+                        .mapToInt(s -> s instanceof TerminalSymbol t ? terminalIds.get(t) : terminals + variableIds.get((VariableSymbol) s))
+                        .toArray();
+                lhs.add(start);
+                rhs.add(symbols);
+            }
+        }
+
+        return new CompiledGrammar(
+                terminalIds.keySet().toArray(TerminalSymbol[]::new),
+                variableIds.keySet().toArray(VariableSymbol[]::new),
+                lhs.stream().mapToInt(Integer::intValue).toArray(),
+                rhs.toArray(int[][]::new)
+        );
+    }
+
+    /**
+     * Writes the symbols and rules in the {@link BinaryFormat}: the identifiers of the terminals and the variables,
+     * the left-hand sides and the right-hand sides of the rules.
+     */
+    void write(DataOutputStream out) throws IOException {
+        BinaryFormat.writeSymbols(out, SymbolTable.TERMINALS, Arrays.stream(terminalSymbols).mapToInt(t -> t.id).toArray());
+        BinaryFormat.writeSymbols(out, SymbolTable.VARIABLES, Arrays.stream(variableSymbols).mapToInt(v -> v.id).toArray());
+        BinaryFormat.writeInts(out, lhs);
+        BinaryFormat.writeNested(out, rhs);
+    }
+
+    /**
+     * Reads a grammar written by {@link #write(DataOutputStream)}. The rules use the local ids of the grammar, so only
+     * the symbols are interned and the arrays are used as they are.
+     */
+    static CompiledGrammar read(ByteBuffer buffer) {
+        TerminalSymbol[] terminalSymbols = Arrays.stream(BinaryFormat.readSymbols(buffer, SymbolTable.TERMINALS))
+                .mapToObj(SymbolTable.TERMINALS::get)
+                .toArray(TerminalSymbol[]::new);
+        VariableSymbol[] variableSymbols = Arrays.stream(BinaryFormat.readSymbols(buffer, SymbolTable.VARIABLES))
+                .mapToObj(SymbolTable.VARIABLES::get)
+                .toArray(VariableSymbol[]::new);
+        int[] lhs = BinaryFormat.readInts(buffer);
+        int[][] rhs = BinaryFormat.readNested(buffer);
+        if (variableSymbols.length == 0 || lhs.length != rhs.length) {
+            throw new IllegalArgumentException("The grammar is corrupt");
+        }
+        return new CompiledGrammar(terminalSymbols, variableSymbols, lhs, rhs);
+    }
+
+    /**
+     * Converts the rules back into one {@link Production} per variable with rules.
+     */
+    Map<VariableSymbol, Production> toProductions() {
+        Map<VariableSymbol, Production> productions = new HashMap<>();
+        for (int r = 0; r < rules(); r++) {
+            Symbol[] symbols = Arrays.stream(rhs[r]).mapToObj(this::symbol).toArray(Symbol[]::new);
+            productions.computeIfAbsent(variableSymbol(lhs[r]), Production::from).to(new Word(symbols));
+        }
+        return productions;
+    }
+
+    /**
+     * @return the id of the start variable
+     */
+    public int start() {
+        return terminals;
+    }
+
+    public int symbolCount() {
+        return terminals + variables;
+    }
+
+    public boolean isTerminal(int symbol) {
+        return symbol < terminals;
+    }
+
+    public boolean isVariable(int symbol) {
+        return symbol >= terminals;
+    }
+
+    /**
+     * Maps a global {@link symbols.SymbolTable terminal id} to the id of the terminal in this grammar.
+     *
+     * @param globalId the global id of the terminal
+     * @return the terminal id in this grammar, or -1 if the terminal is not used by the grammar
+     */
+    public int terminal(int globalId) {
+        return globalId >= 0 && globalId < terminalIndex.length ? terminalIndex[globalId] : -1;
+    }
+
+    public TerminalSymbol terminalSymbol(int terminal) {
+        return terminalSymbols[terminal];
+    }
+
+    public VariableSymbol variableSymbol(int variable) {
+        return variableSymbols[variable - terminals];
+    }
+
+    public Symbol symbol(int symbol) {
+        return isTerminal(symbol) ? terminalSymbol(symbol) : variableSymbol(symbol);
+    }
+
+    public int rules() {
+        return lhs.length;
+    }
+
+    public int lhs(int rule) {
+        return lhs[rule];
+    }
+
+    /**
+     * @return the right-hand side of the given rule. The array must not be modified.
+     */
+    public int[] rhs(int rule) {
+        return rhs[rule];
+    }
+
+    /**
+     * @return the rules of the given variable. The array must not be modified.
+     */
+    public int[] rulesOf(int variable) {
+        return rulesOf[variable - terminals];
+    }
+
+    /**
+     * Computes which variables can derive the empty word.
+     *
+     * @return the nullable flag of every symbol, indexed by symbol id
+     */
+    public boolean[] nullable() {
+        boolean[] nullable = new boolean[symbolCount()];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int r = 0; r < rules(); r++) {
+                if (nullable[lhs[r]]) continue;
+                boolean all = true;
+                for (int s : rhs[r]) {
+                    if (!nullable[s]) {
+                        all = false;
+                        break;
+                    }
+                }
+                if (all) {
+                    nullable[lhs[r]] = true;
+                    changed = true;
+                }
+            }
+        }
+        return nullable;
+    }
+
+    /**
+     * Computes which symbols can derive a word of terminals. All terminals do, and a variable does if one of its rules
+     * consists of such symbols only. Rules with a symbol that derives no word can never be used in a derivation.
+     *
+     * @return the generating flag of every symbol, indexed by symbol id
+     */
+    public boolean[] generating() {
+        boolean[] generating = new boolean[symbolCount()];
+        Arrays.fill(generating, 0, terminals, true);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int r = 0; r < rules(); r++) {
+                if (generating[lhs[r]]) continue;
+                boolean all = true;
+                for (int s : rhs[r]) {
+                    if (!generating[s]) {
+                        all = false;
+                        break;
+                    }
+                }
+                if (all) {
+                    generating[lhs[r]] = true;
+                    changed = true;
+                }
+            }
+        }
+        return generating;
+    }
+
+    public Alphabet getAlphabet() {
+        return new Alphabet(terminalSymbols.clone());
+    }
+
+    /**
+     * Maps the symbols of a word to terminal ids of this grammar.
+     *
+     * @param word the word to map
+     * @return the terminal ids, or null if the word contains a symbol that is not a terminal of this grammar
+     */
+    public int[] toTerminals(Word word) {
+        int[] input = new int[word.length()];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = terminal(word.terminalIdAt(i));
+            if (input[i] < 0) return null;
+        }
+        return input;
+    }
+
+    @Override
+    public String toString() {
+        Map<Integer, List<String>> results = new LinkedHashMap<>();
+        for (int r = 0; r < rules(); r++) {
+            StringBuilder sb = new StringBuilder();
+            for (int s : rhs[r]) sb.append(symbol(s));
+            results.computeIfAbsent(lhs[r], k -> new ArrayList<>()).add(sb.isEmpty() ? "ε" : sb.toString());
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Integer, List<String>> entry : results.entrySet()) {
+            sb.append(symbol(entry.getKey())).append(" -> ").append(String.join(" | ", entry.getValue())).append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -1,73 +1,257 @@
 package grammar;
 
-import pushdown_automaton.PDA;
+import grammar.acceptors.EarleyAcceptor;
+import grammar.acceptors.Engine;
+import grammar.acceptors.ParseForest;
+import symbols.BinaryFormat;
 import symbols.TerminalSymbol;
 import symbols.VariableSymbol;
 import context_free_acceptor.ContextFreeAcceptor;
+import context_free_acceptor.Recognizer;
 import symbols.Word;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.stream.IntStream;
 
 
 /**
  * A context-free grammar is a 4-tuple (V, Σ, P, S) where V is a finite set of variables, Σ is a finite set of terminals,
  * P is a finite set of productions, and S is a start variable.
+ * <p>
+ * Derived artifacts like the alphabet, the {@link CompiledGrammar} and the acceptor of the selected {@link Engine} are
+ * built lazily and cached until the next call of {@link #addProduction(Production)}. Changes made directly to the
+ * productions returned by {@link #getProductions()} are not detected.
  *
  * @author Matthias Harzer
  */
 public class ContextFreeGrammar implements ContextFreeAcceptor{
-    private final Map<VariableSymbol, Production> productions;
+    // Null for a grammar that was read from a binary file, until the productions are needed
+    private Map<VariableSymbol, Production> productions;
     public final VariableSymbol start;
+    private Engine engine = Engine.PDA;
+
+    // Caches, reset by addProduction
+    private volatile Alphabet alphabet;
+    private volatile VariableSymbol[] variablesWithoutProduction;
+    private volatile CompiledGrammar compiled;
+    private volatile ContextFreeAcceptor acceptor;
+    private volatile EarleyAcceptor parser;
 
     public ContextFreeGrammar(VariableSymbol start) {
         this.productions = new HashMap<>();
         this.start = start;
     }
 
+    /**
+     * Creates a grammar from its compiled form, e.g. one that was read with {@link #read(Path)}. The productions are
+     * only created if they are needed, e.g. by {@link #getProductions()} or {@link Engine#PDA}; the other engines work
+     * on the compiled grammar directly.
+     *
+     * @param compiled the compiled grammar
+     */
+    public ContextFreeGrammar(CompiledGrammar compiled) {
+        this.productions = null;
+        this.start = compiled.variableSymbol(compiled.start());
+        this.compiled = compiled;
+    }
+
+    /**
+     * Writes the compiled grammar to a file in the {@link BinaryFormat}, so it can be read with {@link #read(Path)}
+     * without parsing and compiling it again.
+     *
+     * @param path the file to write
+     * @throws IOException if the file can not be written
+     */
+    public void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            BinaryFormat.writeHeader(out, BinaryFormat.GRAMMAR);
+            compile().write(out);
+        }
+    }
+
+    /**
+     * Reads a grammar written by {@link #write(Path)}. The file is memory-mapped and its arrays are used as the
+     * {@link CompiledGrammar}, see {@link #ContextFreeGrammar(CompiledGrammar)}.
+     *
+     * @param path the file to read
+     * @return the grammar
+     * @throws IOException              if the file can not be read
+     * @throws IllegalArgumentException if the file does not contain a grammar of the current format version
+     */
+    public static ContextFreeGrammar read(Path path) throws IOException {
+        ByteBuffer buffer = BinaryFormat.open(path, BinaryFormat.GRAMMAR);
+        try {
+            return new ContextFreeGrammar(CompiledGrammar.read(buffer));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("'%s' is corrupt".formatted(path), e);
+        }
+    }
+
+    private Map<VariableSymbol, Production> productions() {
+        if (productions == null) productions = compiled.toProductions();
+        return productions;
+    }
+
     private boolean hasProduction(Production production) {
-        return productions.values().stream().anyMatch(p -> p.equals(production));
+        // Productions of different variables are never equal
+        return production.equals(productions().get(production.start));
     }
 
 
     public List<VariableSymbol> getVariables() {
-        return productions.keySet().stream().toList();
+        return productions().keySet().stream().toList();
     }
 
+    /**
+     * Returns the alphabet of the grammar. The alphabet is cached and must not be modified.
+     */
     public Alphabet getAlphabet() {
-        TerminalSymbol[] terminals = productions.values().stream()
-                .flatMap(p -> Arrays.stream(p.getTerminals()))
-                .distinct()
-                .toArray(TerminalSymbol[]::new);
-
-        return new Alphabet(terminals);
+        Alphabet alphabet = this.alphabet;
+        if (alphabet == null) {
+            if (productions == null) {
+                alphabet = compiled.getAlphabet();
+            } else {
+                TerminalSymbol[] terminals = productions.values().stream()
+                        .flatMap(p -> Arrays.stream(p.getTerminals()))
+                        .distinct()
+                        .toArray(TerminalSymbol[]::new);
+                alphabet = new Alphabet(terminals);
+            }
+            this.alphabet = alphabet;
+        }
+        return alphabet;
     }
 
     public Map<VariableSymbol, Production> getProductions() {
-        return productions;
+        return productions();
     }
 
     public Production addProduction(Production production) {
-        if (!hasProduction(production)) productions.put(production.start, production);
+        if (!hasProduction(production)) {
+            productions().put(production.start, production);
+            invalidate();
+        }
         return production;
     }
 
+    private void invalidate() {
+        alphabet = null;
+        variablesWithoutProduction = null;
+        compiled = null;
+        acceptor = null;
+        parser = null;
+    }
+
+    /**
+     * Returns the {@link CompiledGrammar} of this grammar. It is cached until the grammar changes.
+     */
+    public CompiledGrammar compile() {
+        CompiledGrammar compiled = this.compiled;
+        if (compiled == null) {
+            compiled = CompiledGrammar.compile(this);
+            this.compiled = compiled;
+        }
+        return compiled;
+    }
+
+    /**
+     * Returns the acceptor of the selected {@link Engine} for this grammar. It is cached until the grammar or the
+     * engine changes. If the grammar has variables without a production, a warning is printed once.
+     */
+    public ContextFreeAcceptor getAcceptor() {
+        ContextFreeAcceptor acceptor = this.acceptor;
+        if (acceptor == null) {
+            if (getVariablesWithoutProduction().length > 0) {
+                System.out.println("Warning: There are variables without a production!");
+            }
+            acceptor = engine.create(this);
+            this.acceptor = acceptor;
+        }
+        return acceptor;
+    }
+
+    /**
+     * Sets the engine that is used to accept words (default {@link Engine#PDA}).
+     * @param engine the engine to use
+     */
+    public void setEngine(Engine engine) {
+        if (this.engine == engine) return;
+        this.engine = engine;
+        this.acceptor = null;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Returns a new, usually smaller grammar of the same language without epsilon productions (except S -> ε), unit
+     * productions and useless variables.
+     *
+     * @see Normalizer
+     */
+    public ContextFreeGrammar normalize() {
+        return Normalizer.normalize(this);
+    }
+
     public boolean accepts(Word word) {
-        if (getVariablesWithoutProduction().length > 0) {
-            System.out.println("Warning: There are variables without a production!");
+        return getAcceptor().accepts(word);
+    }
+
+    /**
+     * Parses the word into a {@link ParseForest} of all its derivations, independent of the selected engine. The forest
+     * shares the nodes of all derivations and enumerates the trees lazily, so it stays polynomial for ambiguous words.
+     *
+     * @param word the word to parse
+     * @return the parse forest, or null if the word is not accepted
+     * @see EarleyAcceptor#parse(Word)
+     */
+    public ParseForest parse(Word word) {
+        EarleyAcceptor parser = this.parser;
+        if (parser == null) {
+            parser = new EarleyAcceptor(compile());
+            this.parser = parser;
         }
-        PDA pda = PDA.fromCFG(this);
-        return pda.accepts(word);
+        return parser.parse(word);
+    }
+
+    @Override
+    public Recognizer recognizer() {
+        return getAcceptor().recognizer();
     }
 
     /**
      * Returns all {@link VariableSymbol VariableSymbols} that do not have a production.
      */
     public VariableSymbol[] getVariablesWithoutProduction(){
-        return productions.values().stream()
-                .flatMap(p -> Arrays.stream(p.getVariables()))
-                .distinct()
-                .filter(v -> !productions.containsKey(v))
-                .toArray(VariableSymbol[]::new);
+        VariableSymbol[] variables = this.variablesWithoutProduction;
+        if (variables == null) {
+            if (productions == null) {
+                CompiledGrammar compiled = this.compiled;
+                variables = IntStream.range(0, compiled.rules())
+                        .flatMap(r -> Arrays.stream(compiled.rhs(r)))
+                        .filter(s -> compiled.isVariable(s) && compiled.rulesOf(s).length == 0)
+                        .distinct()
+                        .mapToObj(compiled::variableSymbol)
+                        .toArray(VariableSymbol[]::new);
+            } else {
+                Map<VariableSymbol, Production> productions = this.productions;
+                variables = productions.values().stream()
+                        .flatMap(p -> Arrays.stream(p.getVariables()))
+                        .distinct()
+                        .filter(v -> !productions.containsKey(v))
+                        .toArray(VariableSymbol[]::new);
+            }
+            this.variablesWithoutProduction = variables;
+        }
+        return variables.clone();
     }
 
 }
@@ -0,0 +1,114 @@
+package grammar;
+
+import java.util.BitSet;
+
+/**
+ * The nullable, FIRST and FOLLOW sets of a {@link CompiledGrammar}.
+ * <p>
+ * FIRST(X) is the set of terminals that can begin a word derived from X. FOLLOW(A) is the set of terminals that can
+ * follow the variable A in a sentential form; it contains the {@link #endOfInput() end of input} if A can end one.
+ * All sets are indexed by the symbol ids of the compiled grammar.
+ *
+ * @author Matthias Harzer
+ */
+public final class FirstFollow {
+    private final CompiledGrammar grammar;
+    private final boolean[] nullable;
+    // By symbol
+    private final BitSet[] first;
+    // By variable - terminals
+    private final BitSet[] follow;
+
+    public FirstFollow(CompiledGrammar grammar) {
+        this.grammar = grammar;
+        this.nullable = grammar.nullable();
+
+        this.first = new BitSet[grammar.symbolCount()];
+        for (int s = 0; s < first.length; s++) {
+            first[s] = new BitSet();
+            if (grammar.isTerminal(s)) first[s].set(s);
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int r = 0; r < grammar.rules(); r++) {
+                changed |= addAll(first[grammar.lhs(r)], first(grammar.rhs(r), 0));
+            }
+        }
+
+        this.follow = new BitSet[grammar.variables];
+        for (int v = 0; v < follow.length; v++) follow[v] = new BitSet();
+        follow[0].set(endOfInput());
+        changed = true;
+        while (changed) {
+            changed = false;
+            for (int r = 0; r < grammar.rules(); r++) {
+                int[] rhs = grammar.rhs(r);
+                for (int i = 0; i < rhs.length; i++) {
+                    if (grammar.isTerminal(rhs[i])) continue;
+                    BitSet target = follow[rhs[i] - grammar.terminals];
+                    changed |= addAll(target, first(rhs, i + 1));
+                    if (isNullable(rhs, i + 1)) changed |= addAll(target, follow[grammar.lhs(r) - grammar.terminals]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds all bits of the source to the target.
+     *
+     * @return true if the target changed
+     */
+    private static boolean addAll(BitSet target, BitSet source) {
+        int before = target.cardinality();
+        target.or(source);
+        return target.cardinality() != before;
+    }
+
+    /**
+     * @return the pseudo terminal id that marks the end of the input in FOLLOW sets
+     */
+    public int endOfInput() {
+        return grammar.terminals;
+    }
+
+    public boolean isNullable(int symbol) {
+        return nullable[symbol];
+    }
+
+    /**
+     * @return true if all symbols of the sequence from the given index on are nullable
+     */
+    public boolean isNullable(int[] symbols, int from) {
+        for (int i = from; i < symbols.length; i++) {
+            if (!nullable[symbols[i]]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return a copy of FIRST of the given symbol
+     */
+    public BitSet first(int symbol) {
+        return (BitSet) first[symbol].clone();
+    }
+
+    /**
+     * @return FIRST of the sequence of symbols from the given index on
+     */
+    public BitSet first(int[] symbols, int from) {
+        BitSet result = new BitSet();
+        for (int i = from; i < symbols.length; i++) {
+            result.or(first[symbols[i]]);
+            if (!nullable[symbols[i]]) break;
+        }
+        return result;
+    }
+
+    /**
+     * @return a copy of FOLLOW of the given variable
+     */
+    public BitSet follow(int variable) {
+        return (BitSet) follow[variable - grammar.terminals].clone();
+    }
+}
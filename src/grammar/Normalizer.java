@@ -0,0 +1,282 @@
+package grammar;
+
+import symbols.Symbol;
+import symbols.TerminalSymbol;
+import symbols.VariableSymbol;
+import symbols.Word;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Transformations of a {@link ContextFreeGrammar} into a smaller grammar of the same language.
+ * <p>
+ * Every step returns a new grammar and leaves the given one unchanged. {@link #normalize(ContextFreeGrammar)} runs the
+ * whole pipeline:
+ * <ol>
+ *     <li>{@link #eliminateEpsilonProductions(ContextFreeGrammar) eliminate epsilon productions}</li>
+ *     <li>{@link #eliminateUnitProductions(ContextFreeGrammar) collapse unit productions} like <code>A -> B</code></li>
+ *     <li>{@link #removeNonGenerating(ContextFreeGrammar) remove variables that derive no word}</li>
+ *     <li>{@link #removeUnreachable(ContextFreeGrammar) remove variables that are not reachable from the start}</li>
+ * </ol>
+ * Afterwards the only epsilon production left is <code>S -> ε</code> for the start variable S, if the language
+ * contains the empty word. In that case S does not appear on any right-hand side.
+ *
+ * @author Matthias Harzer
+ */
+public final class Normalizer {
+    private Normalizer() {
+    }
+
+    /**
+     * Runs all steps of the pipeline.
+     *
+     * @param grammar the grammar to normalize
+     * @return a new grammar of the same language
+     */
+    public static ContextFreeGrammar normalize(ContextFreeGrammar grammar) {
+        ContextFreeGrammar result = eliminateEpsilonProductions(grammar);
+        result = eliminateUnitProductions(result);
+        result = removeNonGenerating(result);
+        return removeUnreachable(result);
+    }
+
+    /**
+     * Removes all epsilon productions. Every production that contains nullable variables is replaced by all of its
+     * variants with some of these variables left out. If the start variable is nullable, <code>S -> ε</code> is kept,
+     * with a new start variable <code>S' -> S | ε</code> if S appears on a right-hand side.
+     *
+     * @param grammar the grammar to transform
+     * @return a new grammar of the same language
+     */
+    public static ContextFreeGrammar eliminateEpsilonProductions(ContextFreeGrammar grammar) {
+        Map<VariableSymbol, Set<Word>> rules = rules(grammar);
+        Set<VariableSymbol> nullable = nullable(rules);
+
+        Map<VariableSymbol, Set<Word>> result = new LinkedHashMap<>();
+        VariableSymbol start = grammar.start;
+        if (nullable.contains(start) && appearsOnRightHandSide(rules, start)) {
+            start = freshVariable(rules, start);
+            result.put(start, new LinkedHashSet<>(List.of(new Word(grammar.start), Word.empty())));
+        }
+
+        for (Map.Entry<VariableSymbol, Set<Word>> entry : rules.entrySet()) {
+            Set<Word> words = result.computeIfAbsent(entry.getKey(), v -> new LinkedHashSet<>());
+            for (Word word : entry.getValue()) {
+                addVariants(word.symbols(), 0, new ArrayList<>(), nullable, words);
+            }
+        }
+        if (start.equals(grammar.start) && nullable.contains(start)) {
+            result.get(start).add(Word.empty());
+        }
+
+        return grammar(grammar, start, result);
+    }
+
+    private static void addVariants(Symbol[] symbols, int index, List<Symbol> prefix, Set<VariableSymbol> nullable, Set<Word> words) {
+        if (index == symbols.length) {
+            if (!prefix.isEmpty()) words.add(new Word(prefix.toArray(Symbol[]::new)));
+            return;
+        }
+
+        Symbol symbol = symbols[index];
+        prefix.add(symbol);
+        addVariants(symbols, index + 1, prefix, nullable, words);
+        prefix.remove(prefix.size() - 1);
+
+        if (symbol instanceof VariableSymbol v && nullable.contains(v)) {
+            addVariants(symbols, index + 1, prefix, nullable, words);
+        }
+    }
+
+    /**
+     * Replaces all unit productions <code>A -> B</code> by the productions of B. Chains of unit productions are
+     * followed, cycles like <code>A -> B, B -> A</code> are collapsed.
+     *
+     * @param grammar the grammar to transform
+     * @return a new grammar of the same language
+     */
+    public static ContextFreeGrammar eliminateUnitProductions(ContextFreeGrammar grammar) {
+        Map<VariableSymbol, Set<Word>> rules = rules(grammar);
+
+        Map<VariableSymbol, Set<Word>> result = new LinkedHashMap<>();
+        for (VariableSymbol variable : rules.keySet()) {
+            Set<Word> words = new LinkedHashSet<>();
+
+            // All variables that are reachable from the variable through unit productions, including itself
+            Set<VariableSymbol> units = new LinkedHashSet<>(List.of(variable));
+            Deque<VariableSymbol> queue = new ArrayDeque<>(units);
+            while (!queue.isEmpty()) {
+                for (Word word : rules.getOrDefault(queue.poll(), Set.of())) {
+                    if (isUnit(word)) {
+                        VariableSymbol unit = (VariableSymbol) word.first();
+                        if (units.add(unit)) queue.add(unit);
+                    } else {
+                        words.add(word);
+                    }
+                }
+            }
+            result.put(variable, words);
+        }
+
+        return grammar(grammar, grammar.start, result);
+    }
+
+    private static boolean isUnit(Word word) {
+        return word.length() == 1 && word.first() instanceof VariableSymbol;
+    }
+
+    /**
+     * Removes all variables that do not derive any word of terminals, together with every production they appear in.
+     *
+     * @param grammar the grammar to transform
+     * @return a new grammar of the same language
+     */
+    public static ContextFreeGrammar removeNonGenerating(ContextFreeGrammar grammar) {
+        Map<VariableSymbol, Set<Word>> rules = rules(grammar);
+
+        Set<VariableSymbol> generating = new HashSet<>();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Map.Entry<VariableSymbol, Set<Word>> entry : rules.entrySet()) {
+                if (generating.contains(entry.getKey())) continue;
+                if (entry.getValue().stream().anyMatch(w -> allMatch(w, generating))) {
+                    generating.add(entry.getKey());
+                    changed = true;
+                }
+            }
+        }
+
+        Map<VariableSymbol, Set<Word>> result = new LinkedHashMap<>();
+        for (Map.Entry<VariableSymbol, Set<Word>> entry : rules.entrySet()) {
+            if (!generating.contains(entry.getKey())) continue;
+            Set<Word> words = new LinkedHashSet<>();
+            for (Word word : entry.getValue()) {
+                if (allMatch(word, generating)) words.add(word);
+            }
+            result.put(entry.getKey(), words);
+        }
+
+        return grammar(grammar, grammar.start, result);
+    }
+
+    /**
+     * Removes all variables that can not be reached from the start variable.
+     *
+     * @param grammar the grammar to transform
+     * @return a new grammar of the same language
+     */
+    public static ContextFreeGrammar removeUnreachable(ContextFreeGrammar grammar) {
+        Map<VariableSymbol, Set<Word>> rules = rules(grammar);
+
+        Set<VariableSymbol> reachable = new LinkedHashSet<>(List.of(grammar.start));
+        Deque<VariableSymbol> queue = new ArrayDeque<>(reachable);
+        while (!queue.isEmpty()) {
+            for (Word word : rules.getOrDefault(queue.poll(), Set.of())) {
+                for (Symbol symbol : word.symbols()) {
+                    if (symbol instanceof VariableSymbol v && reachable.add(v)) queue.add(v);
+                }
+            }
+        }
+
+        Map<VariableSymbol, Set<Word>> result = new LinkedHashMap<>();
+        for (Map.Entry<VariableSymbol, Set<Word>> entry : rules.entrySet()) {
+            if (reachable.contains(entry.getKey())) result.put(entry.getKey(), entry.getValue());
+        }
+
+        return grammar(grammar, grammar.start, result);
+    }
+
+    /**
+     * Collects the productions of a grammar, the start variable first. Epsilon symbols are removed from the words,
+     * so an epsilon production has the empty word as result.
+     */
+    private static Map<VariableSymbol, Set<Word>> rules(ContextFreeGrammar grammar) {
+        Map<VariableSymbol, Set<Word>> rules = new LinkedHashMap<>();
+        Production start = grammar.getProductions().get(grammar.start);
+        if (start != null) rules.put(grammar.start, new LinkedHashSet<>());
+
+        for (Production production : grammar.getProductions().values()) {
+            Set<Word> words = rules.computeIfAbsent(production.start, v -> new LinkedHashSet<>());
+            for (Word result : production.results) {
+                words.add(new Word(Arrays.stream(result.symbols()).filter(s -> !s.isEpsilon()).toArray(Symbol[]::new)));
+            }
+        }
+        return rules;
+    }
+
+    private static Set<VariableSymbol> nullable(Map<VariableSymbol, Set<Word>> rules) {
+        Set<VariableSymbol> nullable = new HashSet<>();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Map.Entry<VariableSymbol, Set<Word>> entry : rules.entrySet()) {
+                if (nullable.contains(entry.getKey())) continue;
+                if (entry.getValue().stream().anyMatch(w -> allVariablesIn(w, nullable))) {
+                    nullable.add(entry.getKey());
+                    changed = true;
+                }
+            }
+        }
+        return nullable;
+    }
+
+    /**
+     * @return true if every symbol of the word is a variable of the given set
+     */
+    private static boolean allVariablesIn(Word word, Set<VariableSymbol> variables) {
+        return Arrays.stream(word.symbols()).allMatch(s -> s instanceof VariableSymbol v && variables.contains(v));
+    }
+
+    /**
+     * @return true if every symbol of the word is a terminal or a variable of the given set
+     */
+    private static boolean allMatch(Word word, Set<VariableSymbol> variables) {
+        return Arrays.stream(word.symbols()).allMatch(s -> s instanceof TerminalSymbol || variables.contains((VariableSymbol) s));
+    }
+
+    private static boolean appearsOnRightHandSide(Map<VariableSymbol, Set<Word>> rules, VariableSymbol variable) {
+        return rules.values().stream()
+                .flatMap(Set::stream)
+                .anyMatch(w -> Arrays.asList(w.symbols()).contains(variable));
+    }
+
+    /**
+     * Creates a variable that is not used by the grammar yet, by appending primes to the identifier of the given one.
+     */
+    private static VariableSymbol freshVariable(Map<VariableSymbol, Set<Word>> rules, VariableSymbol variable) {
+        Set<VariableSymbol> used = new HashSet<>(rules.keySet());
+        rules.values().stream()
+                .flatMap(Set::stream)
+                .flatMap(w -> Arrays.stream(w.symbols()))
+                .filter(s -> s instanceof VariableSymbol)
+                .forEach(s -> used.add((VariableSymbol) s));
+
+        String identifier = variable.identifier + "'";
+        while (used.contains(new VariableSymbol(identifier))) identifier += "'";
+        return new VariableSymbol(identifier);
+    }
+
+    /**
+     * Builds a new grammar from the given rules with the engine of the original grammar. Variables without any
+     * result get no production.
+     */
+    private static ContextFreeGrammar grammar(ContextFreeGrammar original, VariableSymbol start, Map<VariableSymbol, Set<Word>> rules) {
+        ContextFreeGrammar grammar = new ContextFreeGrammar(start);
+        grammar.setEngine(original.getEngine());
+        for (Map.Entry<VariableSymbol, Set<Word>> entry : rules.entrySet()) {
+            if (entry.getValue().isEmpty()) continue;
+            grammar.addProduction(new Production(entry.getKey(), entry.getValue().toArray(Word[]::new)));
+        }
+        return grammar;
+    }
+}
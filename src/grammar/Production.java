@@ -27,7 +27,7 @@ public class Production {
     }
 
     public static Production from(VariableSymbol start) {
-        return new Production(start, Word.empty());
+        return new Production(start);
     }
 
     public Production to(Symbol... symbols) {
@@ -0,0 +1,375 @@
+package grammar.acceptors;
+
+import context_free_acceptor.ContextFreeAcceptor;
+import grammar.Alphabet;
+import grammar.CompiledGrammar;
+import grammar.ContextFreeGrammar;
+import symbols.Word;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A <a href="https://en.wikipedia.org/wiki/CYK_algorithm">CYK</a> recognizer for {@link ContextFreeGrammar ContextFreeGrammars}.
+ * <p>
+ * The grammar is converted to Chomsky normal form once. Every cell of the chart is a bitset over the variables of the
+ * normal form, so combining two cells is a word-wide AND/OR. The recognizer runs in O(n³·|G|) for every grammar,
+ * including ambiguous and left-recursive ones.
+ *
+ * @author Matthias Harzer
+ */
+public class CYKAcceptor implements ContextFreeAcceptor {
+    private final CompiledGrammar grammar;
+    private final Alphabet alphabet;
+    private final boolean acceptsEmpty;
+    private final int start;
+    // Number of longs per bitset
+    private final int words;
+
+    // Bitset of the variables A with A -> t, by terminal t
+    private final long[][] terminalRules;
+    // For every variable B: the variables C with some A -> BC, as bitset and as list
+    private final long[][] secondMask;
+    private final int[][] seconds;
+    // For every variable B and every seconds[B][j] = C: the bitset of the variables A with A -> BC
+    private final long[][][] producers;
+
+    public CYKAcceptor(ContextFreeGrammar grammar) {
+        this(grammar.compile());
+    }
+
+    public CYKAcceptor(CompiledGrammar grammar) {
+        this.grammar = grammar;
+        this.alphabet = grammar.getAlphabet();
+
+        NormalForm cnf = new NormalForm(grammar);
+        this.acceptsEmpty = cnf.acceptsEmpty;
+
+        // Number the reachable variables of the normal form densely
+        Map<Integer, Integer> index = new HashMap<>();
+        for (int v : cnf.reachable()) index.put(v, index.size());
+
+        int variables = index.size();
+        this.start = index.get(grammar.start());
+        this.words = Math.max(1, (variables + 63) >>> 6);
+
+        this.terminalRules = new long[grammar.terminals][words];
+        Map<Long, long[]> binary = new HashMap<>();
+        List<List<Integer>> secondsOf = new ArrayList<>();
+        for (int v = 0; v < variables; v++) secondsOf.add(new ArrayList<>());
+
+        for (int[] rule : cnf.rules) {
+            Integer a = index.get(rule[0]);
+            if (a == null) continue;
+            if (rule.length == 2) {
+                set(terminalRules[rule[1]], a);
+            } else {
+                int b = index.get(rule[1]);
+                int c = index.get(rule[2]);
+                long key = (long) b << 32 | c;
+                long[] producer = binary.get(key);
+                if (producer == null) {
+                    producer = new long[words];
+                    binary.put(key, producer);
+                    secondsOf.get(b).add(c);
+                }
+                set(producer, a);
+            }
+        }
+
+        this.secondMask = new long[variables][words];
+        this.seconds = new int[variables][];
+        this.producers = new long[variables][][];
+        for (int b = 0; b < variables; b++) {
+            seconds[b] = secondsOf.get(b).stream().mapToInt(Integer::intValue).toArray();
+            producers[b] = new long[seconds[b].length][];
+            for (int j = 0; j < seconds[b].length; j++) {
+                set(secondMask[b], seconds[b][j]);
+                producers[b][j] = binary.get((long) b << 32 | seconds[b][j]);
+            }
+        }
+    }
+
+    private static void set(long[] bits, int i) {
+        bits[i >>> 6] |= 1L << i;
+    }
+
+    private static boolean get(long[] bits, int offset, int i) {
+        return (bits[offset + (i >>> 6)] & (1L << i)) != 0;
+    }
+
+    @Override
+    public boolean accepts(Word word) {
+        if (word == null) return false;
+
+        int[] input = grammar.toTerminals(word);
+        if (input == null) return false;
+
+        int n = input.length;
+        if (n == 0) return acceptsEmpty;
+
+        // The cell of the substring of length l starting at i is at (rowStart[l] + i) * words
+        int[] rowStart = new int[n + 1];
+        for (int l = 2; l <= n; l++) rowStart[l] = rowStart[l - 1] + (n - l + 2);
+        long[] chart = new long[(rowStart[n] + 1) * words];
+
+        // The lengths of the non-empty cells by start and by end position, in ascending order. Only splits into two
+        // non-empty cells can produce anything, which keeps sparse charts far below the cubic worst case.
+        Lengths byStart = new Lengths(n + 1);
+        Lengths byEnd = new Lengths(n + 1);
+
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(terminalRules[input[i]], 0, chart, (rowStart[1] + i) * words, words);
+            if (!isEmpty(chart, (rowStart[1] + i) * words)) {
+                byStart.add(i, 1);
+                byEnd.add(i + 1, 1);
+            }
+        }
+
+        for (int l = 2; l <= n; l++) {
+            for (int i = 0; i + l <= n; i++) {
+                int cell = (rowStart[l] + i) * words;
+                int[] lefts = byStart.lengths[i];
+                int[] rights = byEnd.lengths[i + l];
+
+                // Find all k with a non-empty left cell of length k and a non-empty right cell of length l - k
+                int a = 0;
+                int b = byEnd.sizes[i + l] - 1;
+                while (a < byStart.sizes[i] && b >= 0) {
+                    int k = lefts[a];
+                    int m = rights[b];
+                    if (k + m < l) {
+                        a++;
+                    } else if (k + m > l) {
+                        b--;
+                    } else {
+                        combine(chart, (rowStart[k] + i) * words, (rowStart[m] + i + k) * words, cell);
+                        a++;
+                        b--;
+                    }
+                }
+
+                if (!isEmpty(chart, cell)) {
+                    byStart.add(i, l);
+                    byEnd.add(i + l, l);
+                }
+            }
+        }
+
+        return get(chart, rowStart[n] * words, start);
+    }
+
+    /**
+     * Growable lists of cell lengths, one per position.
+     */
+    private static final class Lengths {
+        private final int[][] lengths;
+        private final int[] sizes;
+
+        private Lengths(int positions) {
+            this.lengths = new int[positions][4];
+            this.sizes = new int[positions];
+        }
+
+        private void add(int position, int length) {
+            if (sizes[position] == lengths[position].length) {
+                lengths[position] = Arrays.copyOf(lengths[position], sizes[position] * 2);
+            }
+            lengths[position][sizes[position]++] = length;
+        }
+    }
+
+    /**
+     * Adds every A with A -> BC, B in the left cell and C in the right cell, to the target cell.
+     */
+    private void combine(long[] chart, int left, int right, int target) {
+        for (int w = 0; w < words; w++) {
+            long bits = chart[left + w];
+            while (bits != 0) {
+                int b = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                if (!intersects(secondMask[b], chart, right)) continue;
+
+                int[] cs = seconds[b];
+                for (int j = 0; j < cs.length; j++) {
+                    if (!get(chart, right, cs[j])) continue;
+                    long[] producer = producers[b][j];
+                    for (int x = 0; x < words; x++) chart[target + x] |= producer[x];
+                }
+            }
+        }
+    }
+
+    private boolean isEmpty(long[] chart, int cell) {
+        for (int w = 0; w < words; w++) {
+            if (chart[cell + w] != 0) return false;
+        }
+        return true;
+    }
+
+    private boolean intersects(long[] mask, long[] chart, int cell) {
+        for (int w = 0; w < words; w++) {
+            if ((mask[w] & chart[cell + w]) != 0) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Alphabet getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * The Chomsky normal form of a compiled grammar, built with the usual TERM, BIN, DEL and UNIT steps. Rules are
+     * stored as <code>{A, t}</code> for A -> t and <code>{A, B, C}</code> for A -> BC. New variables get ids after the
+     * variables of the grammar.
+     */
+    private static final class NormalForm {
+        private final CompiledGrammar grammar;
+        private final boolean acceptsEmpty;
+        private List<int[]> rules = new ArrayList<>();
+        private int nextVariable;
+
+        private NormalForm(CompiledGrammar grammar) {
+            this.grammar = grammar;
+            this.nextVariable = grammar.symbolCount();
+
+            // TERM: replace terminals in long rules by a variable N_t -> t
+            Map<Integer, Integer> terminalVariables = new HashMap<>();
+            for (int r = 0; r < grammar.rules(); r++) {
+                int[] rhs = grammar.rhs(r).clone();
+                if (rhs.length >= 2) {
+                    for (int i = 0; i < rhs.length; i++) {
+                        if (grammar.isTerminal(rhs[i])) {
+                            int t = rhs[i];
+                            rhs[i] = terminalVariables.computeIfAbsent(t, k -> {
+                                int v = nextVariable++;
+                                rules.add(new int[]{v, k});
+                                return v;
+                            });
+                        }
+                    }
+                }
+                rules.add(concat(grammar.lhs(r), rhs));
+            }
+
+            // BIN: split rules with more than two symbols on the right-hand side
+            List<int[]> binary = new ArrayList<>();
+            for (int[] rule : rules) {
+                int lhs = rule[0];
+                int i = 1;
+                while (rule.length - i > 2) {
+                    int v = nextVariable++;
+                    binary.add(new int[]{lhs, rule[i], v});
+                    lhs = v;
+                    i++;
+                }
+                binary.add(concat(lhs, Arrays.copyOfRange(rule, i, rule.length)));
+            }
+
+            // DEL: remove empty rules
+            boolean[] nullable = nullable(binary);
+            this.acceptsEmpty = nullable[grammar.start()];
+            Set<List<Integer>> withoutEmpty = new LinkedHashSet<>();
+            for (int[] rule : binary) {
+                if (rule.length == 3) {
+                    withoutEmpty.add(List.of(rule[0], rule[1], rule[2]));
+                    if (nullable[rule[1]]) withoutEmpty.add(List.of(rule[0], rule[2]));
+                    if (nullable[rule[2]]) withoutEmpty.add(List.of(rule[0], rule[1]));
+                } else if (rule.length == 2) {
+                    withoutEmpty.add(List.of(rule[0], rule[1]));
+                }
+            }
+
+            // UNIT: replace A -> B by the non-unit rules of every variable reachable from A by unit rules
+            Map<Integer, List<Integer>> units = new HashMap<>();
+            Map<Integer, List<int[]>> nonUnit = new HashMap<>();
+            for (List<Integer> rule : withoutEmpty) {
+                if (rule.size() == 2 && !grammar.isTerminal(rule.get(1))) {
+                    units.computeIfAbsent(rule.get(0), k -> new ArrayList<>()).add(rule.get(1));
+                } else {
+                    nonUnit.computeIfAbsent(rule.get(0), k -> new ArrayList<>()).add(rule.stream().mapToInt(Integer::intValue).toArray());
+                }
+            }
+
+            Set<List<Integer>> result = new LinkedHashSet<>();
+            Set<Integer> lhsVariables = new LinkedHashSet<>();
+            for (List<Integer> rule : withoutEmpty) lhsVariables.add(rule.get(0));
+            for (int a : lhsVariables) {
+                for (int b : unitClosure(a, units)) {
+                    for (int[] rule : nonUnit.getOrDefault(b, List.of())) {
+                        List<Integer> r = new ArrayList<>();
+                        r.add(a);
+                        for (int i = 1; i < rule.length; i++) r.add(rule[i]);
+                        result.add(r);
+                    }
+                }
+            }
+
+            this.rules = result.stream().map(r -> r.stream().mapToInt(Integer::intValue).toArray()).toList();
+        }
+
+        private static int[] concat(int lhs, int[] rhs) {
+            int[] rule = new int[rhs.length + 1];
+            rule[0] = lhs;
+            System.arraycopy(rhs, 0, rule, 1, rhs.length);
+            return rule;
+        }
+
+        private boolean[] nullable(List<int[]> rules) {
+            boolean[] nullable = new boolean[nextVariable];
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int[] rule : rules) {
+                    if (nullable[rule[0]]) continue;
+                    boolean all = true;
+                    for (int i = 1; i < rule.length; i++) all &= nullable[rule[i]];
+                    if (all) {
+                        nullable[rule[0]] = true;
+                        changed = true;
+                    }
+                }
+            }
+            return nullable;
+        }
+
+        private static Set<Integer> unitClosure(int variable, Map<Integer, List<Integer>> units) {
+            Set<Integer> closure = new LinkedHashSet<>();
+            List<Integer> todo = new ArrayList<>(List.of(variable));
+            while (!todo.isEmpty()) {
+                int v = todo.remove(todo.size() - 1);
+                if (closure.add(v)) todo.addAll(units.getOrDefault(v, List.of()));
+            }
+            return closure;
+        }
+
+        /**
+         * @return the variables that are reachable from the start variable, the start variable first
+         */
+        private Set<Integer> reachable() {
+            Map<Integer, List<int[]>> byLhs = new HashMap<>();
+            for (int[] rule : rules) byLhs.computeIfAbsent(rule[0], k -> new ArrayList<>()).add(rule);
+
+            Set<Integer> reachable = new LinkedHashSet<>();
+            List<Integer> todo = new ArrayList<>(List.of(grammar.start()));
+            while (!todo.isEmpty()) {
+                int v = todo.remove(0);
+                if (!reachable.add(v)) continue;
+                for (int[] rule : byLhs.getOrDefault(v, List.of())) {
+                    if (rule.length == 3) {
+                        todo.add(rule[1]);
+                        todo.add(rule[2]);
+                    }
+                }
+            }
+            return reachable;
+        }
+    }
+}
@@ -0,0 +1,534 @@
+package grammar.acceptors;
+
+import context_free_acceptor.ContextFreeAcceptor;
+import context_free_acceptor.Recognizer;
+import grammar.Alphabet;
+import grammar.CompiledGrammar;
+import grammar.ContextFreeGrammar;
+import symbols.Word;
+
+import java.util.Arrays;
+
+/**
+ * An <a href="https://en.wikipedia.org/wiki/Earley_parser">Earley</a> recognizer for {@link ContextFreeGrammar ContextFreeGrammars}.
+ * <p>
+ * Works for every grammar, including left recursion and epsilon productions, in at most cubic time. An item is
+ * a pair of ints: the dotted rule and the origin position. The items of every position are indexed by the variable
+ * they expect next, so completing a variable only visits the items that wait for it. Nullable variables are
+ * handled as described by Aycock and Horspool, and right recursion is kept linear with Leo's optimization: if
+ * completing a variable leads through a chain of items that each have exactly one possible continuation, only the
+ * topmost item of the chain is added.
+ * <p>
+ * The chart is built one position at a time, so the {@link #recognizer() recognizer} reads streamed input without
+ * knowing its length. Rules with a symbol that derives no word are never predicted, so every item in the chart can
+ * still be completed: the input is a viable prefix as long as the last set is not empty.
+ *
+ * @author Matthias Harzer
+ */
+public class EarleyAcceptor implements ContextFreeAcceptor {
+    private static final long NONE = -1;
+
+    private final CompiledGrammar grammar;
+    private final Alphabet alphabet;
+    private final boolean[] nullable;
+    // The rules to predict for variable v at predictions[v - terminals]: all rules whose symbols all derive a word
+    private final int[][] predictions;
+    private final boolean generatingStart;
+    // The rules of the grammar plus the rule S' -> S of a new start variable S'
+    private final int[] ruleLhs;
+    // The dotted rules of rule r are ruleStart[r] to ruleStart[r] + |rhs(r)|
+    private final int[] ruleStart;
+    // The rule, the next symbol (or -1 if the dot is at the end) and whether the dot is before the last symbol, by dotted rule
+    private final int[] dotRule;
+    private final int[] dotNext;
+    private final boolean[] dotPenultimate;
+
+    public EarleyAcceptor(ContextFreeGrammar grammar) {
+        this(grammar.compile());
+    }
+
+    public EarleyAcceptor(CompiledGrammar grammar) {
+        this.grammar = grammar;
+        this.alphabet = grammar.getAlphabet();
+        this.nullable = grammar.nullable();
+        boolean[] generating = grammar.generating();
+        this.generatingStart = generating[grammar.start()];
+        this.predictions = new int[grammar.variables][];
+        for (int v = 0; v < grammar.variables; v++) {
+            predictions[v] = Arrays.stream(grammar.rulesOf(grammar.terminals + v))
+                    .filter(r -> Arrays.stream(grammar.rhs(r)).allMatch(s -> generating[s]))
+                    .toArray();
+        }
+
+        int rules = grammar.rules() + 1;
+        this.ruleLhs = new int[rules];
+        this.ruleStart = new int[rules];
+        int dots = 0;
+        for (int r = 0; r < rules; r++) {
+            ruleLhs[r] = r < grammar.rules() ? grammar.lhs(r) : grammar.symbolCount();
+            ruleStart[r] = dots;
+            dots += rhs(r).length + 1;
+        }
+
+        this.dotRule = new int[dots];
+        this.dotNext = new int[dots];
+        this.dotPenultimate = new boolean[dots];
+        for (int r = 0; r < rules; r++) {
+            int[] rhs = rhs(r);
+            for (int d = 0; d <= rhs.length; d++) {
+                dotRule[ruleStart[r] + d] = r;
+                dotNext[ruleStart[r] + d] = d < rhs.length ? rhs[d] : -1;
+                dotPenultimate[ruleStart[r] + d] = d == rhs.length - 1;
+            }
+        }
+    }
+
+    private int[] rhs(int rule) {
+        return rule < grammar.rules() ? grammar.rhs(rule) : new int[]{grammar.start()};
+    }
+
+    /**
+     * @return the dotted rule S' -> ·S
+     */
+    private int startDot() {
+        return ruleStart[grammar.rules()];
+    }
+
+    @Override
+    public boolean accepts(Word word) {
+        if (word == null) return false;
+
+        int[] input = grammar.toTerminals(word);
+        if (input == null) return false;
+
+        Chart chart = new Chart(input.length, true);
+        chart.build(0);
+        for (int j = 0; j < input.length; j++) {
+            if (!chart.scan(input[j])) return false;
+            chart.build(j + 1);
+        }
+        return chart.accepted();
+    }
+
+    @Override
+    public Recognizer recognizer() {
+        Chart chart = new Chart(16, true);
+        chart.build(0);
+
+        return new Recognizer() {
+            private int position = 0;
+            private boolean rejected = !generatingStart;
+
+            @Override
+            public boolean push(int terminal) {
+                if (rejected) return false;
+                int next = grammar.terminal(terminal);
+                if (next < 0 || !chart.scan(next)) {
+                    rejected = true;
+                    return false;
+                }
+                chart.build(++position);
+                return true;
+            }
+
+            @Override
+            public boolean isViablePrefix() {
+                return !rejected;
+            }
+
+            @Override
+            public boolean isAccepted() {
+                return !rejected && chart.accepted();
+            }
+        };
+    }
+
+    /**
+     * Parses the word into a {@link ParseForest} of all its derivations.
+     * <p>
+     * The chart is built without Leo's optimization, so it contains every item. The forest is then built top down from
+     * the root: an item <code>(A -> α·β, i)</code> in set k means that α derives the symbols i to k - 1, so the
+     * families of a node are found by looking up the items of its split positions. Only nodes that are part of a
+     * derivation of the whole word are created, in at most cubic time. Without Leo's optimization, right recursion
+     * takes quadratic time like in every other Earley parser.
+     *
+     * @param word the word to parse
+     * @return the parse forest, or null if the word is not accepted
+     */
+    public ParseForest parse(Word word) {
+        if (word == null) return null;
+
+        int[] input = grammar.toTerminals(word);
+        if (input == null) return null;
+
+        Chart chart = new Chart(input.length, false);
+        chart.build(0);
+        for (int j = 0; j < input.length; j++) {
+            if (!chart.scan(input[j])) return null;
+            chart.build(j + 1);
+        }
+        if (!chart.accepted()) return null;
+        return new ForestBuilder(chart, input).build();
+    }
+
+    @Override
+    public Alphabet getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * The item sets of one run. All items are stored in flat int arrays, the items of position j are
+     * <code>setStart[j]</code> to <code>setStart[j + 1] - 1</code>.
+     */
+    private final class Chart {
+        private final boolean useLeo;
+        private int[] setStart;
+        private int[] itemDot = new int[64];
+        private int[] itemOrigin = new int[64];
+        private int[] nextWaiting = new int[64];
+        private int items = 0;
+
+        // The items scanned into the next set
+        private int[] scannedDot = new int[16];
+        private int[] scannedOrigin = new int[16];
+        private int scanned = 0;
+
+        // The items of the current set that expect a terminal
+        private int[] expecting = new int[16];
+        private int expectingCount = 0;
+
+        // (position, variable) -> first item of the position waiting for the variable, linked by nextWaiting
+        private final LongMap waiting = new LongMap();
+        // (position, variable) -> topmost Leo item, packed as (dot, origin), or NONE
+        private final LongMap leo = new LongMap();
+        // (dot, origin) of the items in the current set
+        private final LongMap current = new LongMap();
+
+        /**
+         * @param length the expected length of the input, the chart grows if it is longer
+         * @param useLeo whether to use Leo's optimization, which drops the items a parse forest is built from
+         */
+        private Chart(int length, boolean useLeo) {
+            this.useLeo = useLeo;
+            this.setStart = new int[length + 2];
+        }
+
+        /**
+         * Builds the item set of the given position from the items scanned into it, or from the start item at
+         * position 0.
+         */
+        private void build(int j) {
+            if (j + 2 > setStart.length) setStart = Arrays.copyOf(setStart, Math.max(setStart.length * 2, j + 2));
+            setStart[j] = items;
+            current.clear();
+
+            if (j == 0) {
+                add(j, startDot(), 0);
+            } else {
+                for (int s = 0; s < scanned; s++) add(j, scannedDot[s], scannedOrigin[s]);
+            }
+            scanned = 0;
+            expectingCount = 0;
+
+            for (int item = setStart[j]; item < items; item++) {
+                int dot = itemDot[item];
+                int origin = itemOrigin[item];
+                int next = dotNext[dot];
+
+                if (next < 0) {
+                    complete(j, ruleLhs[dotRule[dot]], origin);
+                } else if (grammar.isTerminal(next)) {
+                    if (expectingCount == expecting.length) expecting = Arrays.copyOf(expecting, expectingCount * 2);
+                    expecting[expectingCount++] = item;
+                } else {
+                    for (int r : predictions[next - grammar.terminals]) add(j, ruleStart[r], j);
+                    if (nullable[next]) add(j, dot + 1, origin);
+                }
+            }
+            setStart[j + 1] = items;
+        }
+
+        /**
+         * Moves the dot over the given terminal in all items of the last built set that expect it.
+         *
+         * @return false if no item expects the terminal, so no word with this prefix can be accepted
+         */
+        private boolean scan(int terminal) {
+            for (int i = 0; i < expectingCount; i++) {
+                int item = expecting[i];
+                if (dotNext[itemDot[item]] == terminal) addScanned(itemDot[item] + 1, itemOrigin[item]);
+            }
+            return scanned > 0;
+        }
+
+        /**
+         * The word is accepted if the last set contains S' -> S·. This item is never skipped by Leo's optimization,
+         * since no item waits for S'.
+         */
+        private boolean accepted() {
+            return current.get((long) (startDot() + 1) << 32, NONE) != NONE;
+        }
+
+        private void complete(int j, int variable, int origin) {
+            if (useLeo && origin < j) {
+                long top = topmost(origin, variable);
+                if (top != NONE) {
+                    add(j, (int) (top >>> 32), (int) top);
+                    return;
+                }
+            }
+            for (int w = (int) waiting.get(key(origin, variable), -1); w >= 0; w = nextWaiting[w]) {
+                add(j, itemDot[w] + 1, itemOrigin[w]);
+            }
+        }
+
+        /**
+         * Finds the topmost item of the deterministic reduction path above the completion of the given variable
+         * with the given origin, or NONE if the completion has more than one continuation.
+         */
+        private long topmost(int position, int variable) {
+            // Follow the chain of unique penultimate items iteratively, then memoize the whole chain
+            long[] chain = new long[8];
+            int length = 0;
+            long candidate = NONE;
+            long top;
+            while (true) {
+                long key = key(position, variable);
+                long memo = leo.get(key, Long.MIN_VALUE);
+                if (memo != Long.MIN_VALUE) {
+                    top = memo;
+                    break;
+                }
+
+                int w = (int) waiting.get(key, -1);
+                if (w < 0 || nextWaiting[w] >= 0 || !dotPenultimate[itemDot[w]]) {
+                    leo.put(key, NONE);
+                    top = NONE;
+                    break;
+                }
+
+                if (length == chain.length) chain = Arrays.copyOf(chain, length * 2);
+                chain[length++] = key;
+                candidate = (long) (itemDot[w] + 1) << 32 | itemOrigin[w];
+                position = itemOrigin[w];
+                variable = ruleLhs[dotRule[itemDot[w]]];
+            }
+
+            // The whole chain shares the topmost item. If nothing above the chain is unique, the completed item of
+            // the last element of the chain is the topmost item.
+            if (top == NONE) top = candidate;
+            for (int i = 0; i < length; i++) leo.put(chain[i], top);
+            return top;
+        }
+
+        private void addScanned(int dot, int origin) {
+            if (scanned == scannedDot.length) {
+                scannedDot = Arrays.copyOf(scannedDot, scanned * 2);
+                scannedOrigin = Arrays.copyOf(scannedOrigin, scanned * 2);
+            }
+            scannedDot[scanned] = dot;
+            scannedOrigin[scanned] = origin;
+            scanned++;
+        }
+
+        private void add(int j, int dot, int origin) {
+            if (!current.putIfAbsent((long) dot << 32 | origin, 0)) return;
+
+            if (items == itemDot.length) {
+                itemDot = Arrays.copyOf(itemDot, items * 2);
+                itemOrigin = Arrays.copyOf(itemOrigin, items * 2);
+                nextWaiting = Arrays.copyOf(nextWaiting, items * 2);
+            }
+            itemDot[items] = dot;
+            itemOrigin[items] = origin;
+            nextWaiting[items] = -1;
+
+            int next = dotNext[dot];
+            if (next >= 0 && grammar.isVariable(next)) {
+                long key = key(j, next);
+                nextWaiting[items] = (int) waiting.get(key, -1);
+                waiting.put(key, items);
+            }
+            items++;
+        }
+
+        private static long key(int position, int symbol) {
+            return (long) position << 32 | symbol;
+        }
+    }
+
+    /**
+     * Builds the {@link ParseForest} of an accepted word from a chart without Leo items. Nodes are created on demand
+     * and their families are computed from a worklist, so deep derivations do not recurse.
+     */
+    private final class ForestBuilder {
+        private final int[] input;
+        private final int positions;
+        // (dot, origin) -> 0 of the items of every set
+        private final LongMap[] sets;
+        // (label, start, end) -> node, the label is the symbol or symbolCount + dotted rule for intermediate nodes
+        private final LongMap nodes = new LongMap();
+        private final ParseForest forest = new ParseForest(grammar);
+        private int[] pending = new int[64];
+        private int pendingCount = 0;
+
+        private ForestBuilder(Chart chart, int[] input) {
+            this.input = input;
+            this.positions = input.length + 1;
+            this.sets = new LongMap[positions];
+            for (int j = 0; j < positions; j++) {
+                sets[j] = new LongMap();
+                for (int item = chart.setStart[j]; item < chart.setStart[j + 1]; item++) {
+                    sets[j].put((long) chart.itemDot[item] << 32 | chart.itemOrigin[item], 0);
+                }
+            }
+        }
+
+        private ParseForest build() {
+            forest.setRoot(symbolNode(grammar.start(), 0, input.length));
+            while (pendingCount > 0) {
+                int node = pending[--pendingCount];
+                int start = forest.start(node);
+                int end = forest.end(node);
+                if (forest.isIntermediate(node)) {
+                    addSplits(node, -1, forest.rule(node), forest.dot(node), start, end);
+                } else if (grammar.isVariable(forest.symbol(node))) {
+                    for (int r : grammar.rulesOf(forest.symbol(node))) {
+                        int length = grammar.rhs(r).length;
+                        if (!contains(end, ruleStart[r] + length, start)) continue;
+
+                        if (length == 0) forest.addFamily(node, r, -1, -1);
+                        else if (length == 1) forest.addFamily(node, r, -1, symbolNode(grammar.rhs(r)[0], start, end));
+                        else addSplits(node, r, r, length, start, end);
+                    }
+                }
+            }
+            return forest;
+        }
+
+        /**
+         * Adds a family for every position k where the first dot - 1 symbols of the rule derive the symbols from start
+         * to k and its symbol at dot - 1 derives the symbols from k to end.
+         */
+        private void addSplits(int node, int familyRule, int rule, int dot, int start, int end) {
+            int last = grammar.rhs(rule)[dot - 1];
+            for (int k = start; k <= end; k++) {
+                if (!contains(k, ruleStart[rule] + dot - 1, start) || !derives(last, k, end)) continue;
+                forest.addFamily(node, familyRule, prefixNode(rule, dot - 1, start, k), symbolNode(last, k, end));
+            }
+        }
+
+        private boolean derives(int symbol, int start, int end) {
+            if (grammar.isTerminal(symbol)) return end == start + 1 && input[start] == symbol;
+            for (int r : grammar.rulesOf(symbol)) {
+                if (contains(end, ruleStart[r] + grammar.rhs(r).length, start)) return true;
+            }
+            return false;
+        }
+
+        private boolean contains(int set, int dot, int origin) {
+            return sets[set].get((long) dot << 32 | origin, NONE) != NONE;
+        }
+
+        /**
+         * @return the node of the first <code>dot</code> symbols of the rule, the symbol node itself for one symbol
+         */
+        private int prefixNode(int rule, int dot, int start, int end) {
+            if (dot == 1) return symbolNode(grammar.rhs(rule)[0], start, end);
+            return node(grammar.symbolCount() + ruleStart[rule] + dot, -1, rule, dot, start, end);
+        }
+
+        private int symbolNode(int symbol, int start, int end) {
+            return node(symbol, symbol, -1, -1, start, end);
+        }
+
+        private int node(int label, int symbol, int rule, int dot, int start, int end) {
+            long key = ((long) label * positions + start) * positions + end;
+            long node = nodes.get(key, NONE);
+            if (node != NONE) return (int) node;
+
+            int created = forest.addNode(symbol, rule, dot, start, end);
+            nodes.put(key, created);
+            if (pendingCount == pending.length) pending = Arrays.copyOf(pending, pendingCount * 2);
+            pending[pendingCount++] = created;
+            return created;
+        }
+    }
+
+    /**
+     * A minimal open addressing hash map from long to long.
+     */
+    static final class LongMap {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys = new long[16];
+        private long[] values = new long[16];
+        private int size = 0;
+
+        LongMap() {
+            Arrays.fill(keys, EMPTY);
+        }
+
+        long get(long key, long defaultValue) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+            }
+            return defaultValue;
+        }
+
+        void put(long key, long value) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != EMPTY) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            if (++size * 2 > keys.length) grow();
+        }
+
+        /**
+         * @return true if the key was not present and has been added
+         */
+        boolean putIfAbsent(long key, long value) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != EMPTY) {
+                if (keys[i] == key) return false;
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            if (++size * 2 > keys.length) grow();
+            return true;
+        }
+
+        void clear() {
+            if (size == 0) return;
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new long[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
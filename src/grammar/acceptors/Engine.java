@@ -0,0 +1,98 @@
+package grammar.acceptors;
+
+import context_free_acceptor.ContextFreeAcceptor;
+import grammar.ContextFreeGrammar;
+import pushdown_automaton.PDA;
+
+/**
+ * The engines a {@link ContextFreeGrammar} can use to accept words.
+ *
+ * @see ContextFreeGrammar#setEngine(Engine)
+ * @author Matthias Harzer
+ */
+public enum Engine {
+    /**
+     * Simulates the grammar with the pushdown automaton of {@link PDA#fromCFG(ContextFreeGrammar)}. This is the
+     * default engine.
+     * <p>
+     * An epsilon production of the start variable is honored, so the empty word is accepted if the start variable is
+     * nullable. Epsilon productions of all other variables are silently dropped, so words that need them are rejected.
+     * Call {@link ContextFreeGrammar#normalize()} first, which moves all epsilon productions into the start variable,
+     * or use another engine such as {@link #EARLEY} for grammars with epsilon productions.
+     */
+    PDA {
+        @Override
+        public ContextFreeAcceptor create(ContextFreeGrammar grammar) {
+            return pushdown_automaton.PDA.fromCFG(grammar);
+        }
+    },
+    /**
+     * Uses a {@link CYKAcceptor}.
+     */
+    CYK {
+        @Override
+        public ContextFreeAcceptor create(ContextFreeGrammar grammar) {
+            return new CYKAcceptor(grammar);
+        }
+    },
+    /**
+     * Uses an {@link EarleyAcceptor}.
+     */
+    EARLEY {
+        @Override
+        public ContextFreeAcceptor create(ContextFreeGrammar grammar) {
+            return new EarleyAcceptor(grammar);
+        }
+    },
+    /**
+     * Uses a {@link GLRAcceptor}, which stays polynomial on highly ambiguous grammars.
+     */
+    GLR {
+        @Override
+        public ContextFreeAcceptor create(ContextFreeGrammar grammar) {
+            return new GLRAcceptor(grammar);
+        }
+    },
+    /**
+     * Uses an {@link LL1Acceptor} if the grammar is LL(1). Otherwise the conflicts are printed and an
+     * {@link EarleyAcceptor} is used instead.
+     */
+    LL1 {
+        @Override
+        public ContextFreeAcceptor create(ContextFreeGrammar grammar) {
+            LL1Acceptor acceptor = new LL1Acceptor(grammar);
+            if (acceptor.isLL1()) return acceptor;
+
+            System.out.println("Warning: The grammar is not LL(1), using the Earley engine instead:");
+            for (LL1Acceptor.Conflict conflict : acceptor.getConflicts()) {
+                System.out.println("  " + conflict);
+            }
+            return EARLEY.create(grammar);
+        }
+    },
+    /**
+     * Uses an {@link LALR1Acceptor} if the grammar is LALR(1). Otherwise the conflicts are printed and an
+     * {@link EarleyAcceptor} is used instead.
+     */
+    LALR1 {
+        @Override
+        public ContextFreeAcceptor create(ContextFreeGrammar grammar) {
+            LALR1Acceptor acceptor = new LALR1Acceptor(grammar);
+            if (acceptor.isLALR1()) return acceptor;
+
+            System.out.println("Warning: The grammar is not LALR(1), using the Earley engine instead:");
+            for (LALR1Acceptor.Conflict conflict : acceptor.getConflicts()) {
+                System.out.println("  " + conflict);
+            }
+            return EARLEY.create(grammar);
+        }
+    };
+
+    /**
+     * Creates an acceptor for the given grammar.
+     *
+     * @param grammar the grammar to accept
+     * @return the acceptor
+     */
+    public abstract ContextFreeAcceptor create(ContextFreeGrammar grammar);
+}
@@ -0,0 +1,423 @@
+package grammar.acceptors;
+
+import context_free_acceptor.ContextFreeAcceptor;
+import context_free_acceptor.Recognizer;
+import grammar.Alphabet;
+import grammar.CompiledGrammar;
+import grammar.ContextFreeGrammar;
+import symbols.Word;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A <a href="https://en.wikipedia.org/wiki/GLR_parser">generalized LR</a> recognizer for
+ * {@link ContextFreeGrammar ContextFreeGrammars}, following the RNGLR algorithm of Scott and Johnstone.
+ * <p>
+ * The recognizer runs the LR automaton of the grammar on all paths at once. Instead of copying the stack for every
+ * conflicting action, all stacks are merged into a graph-structured stack: the nodes of level i are the states after
+ * reading i symbols, at most one per state, and the edges point to the nodes below. Stacks with common prefixes and
+ * suffixes share their nodes, so even highly ambiguous grammars like <code>S -> SS | a</code> are accepted in
+ * polynomial time. Epsilon productions are handled with right-nullable reductions: an item A -> α·β with a nullable β
+ * reduces the |α| symbols of α, so no epsilon reductions have to be applied to nodes of earlier levels.
+ * <p>
+ * A level only depends on the levels below it and its lookahead, so the {@link #recognizer() recognizer} builds one
+ * level per pushed symbol.
+ *
+ * @author Matthias Harzer
+ */
+public class GLRAcceptor implements ContextFreeAcceptor {
+    private final CompiledGrammar grammar;
+    private final Alphabet alphabet;
+    private final boolean acceptsEmpty;
+    private final boolean generatingStart;
+    private final int states;
+    // The terminals plus the end of input
+    private final int columns;
+    // By state * columns + terminal: the state to shift to, or -1
+    private final int[] shift;
+    // By state * symbolCount + variable: the state after reducing the variable
+    private final int[] gotoTable;
+    // The reductions of cell c are reduceStart[c] to reduceStart[c + 1] - 1, each a variable and the number of symbols
+    // to reduce
+    private final int[] reduceStart;
+    private final int[] reduceVariable;
+    private final int[] reduceLength;
+    // The state of S' -> S·
+    private final int acceptState;
+
+    public GLRAcceptor(ContextFreeGrammar grammar) {
+        this(grammar.compile());
+    }
+
+    public GLRAcceptor(CompiledGrammar grammar) {
+        this.grammar = grammar;
+        this.alphabet = grammar.getAlphabet();
+        this.acceptsEmpty = grammar.nullable()[grammar.start()];
+        this.generatingStart = grammar.generating()[grammar.start()];
+        this.columns = grammar.terminals + 1;
+
+        LRAutomaton automaton = new LRAutomaton(grammar);
+        this.states = automaton.states();
+        this.acceptState = automaton.target(0, grammar.start());
+        this.shift = new int[states * columns];
+        this.gotoTable = new int[states * grammar.symbolCount()];
+        this.reduceStart = new int[states * columns + 1];
+
+        List<int[]> reductions = new ArrayList<>();
+        for (int s = 0; s < states; s++) {
+            for (int symbol = 0; symbol < grammar.symbolCount(); symbol++) {
+                int target = automaton.target(s, symbol);
+                if (grammar.isTerminal(symbol)) shift[s * columns + symbol] = target;
+                else gotoTable[s * grammar.symbolCount() + symbol] = target;
+            }
+            shift[s * columns + grammar.terminals] = -1;
+
+            // The distinct (variable, length) pairs of every lookahead
+            List<Set<Long>> cells = new ArrayList<>();
+            for (int t = 0; t < columns; t++) cells.add(new HashSet<>());
+
+            int[] items = automaton.items(s);
+            for (int i = 0; i < items.length; i++) {
+                int rule = automaton.rule(items[i]);
+                if (rule == grammar.rules() || !automaton.isRightNullable(items[i])) continue;
+
+                long reduction = (long) grammar.lhs(rule) << 32 | automaton.position(items[i]);
+                BitSet lookahead = automaton.lookahead(s, i);
+                for (int t = lookahead.nextSetBit(0); t >= 0; t = lookahead.nextSetBit(t + 1)) {
+                    if (cells.get(t).add(reduction)) reductions.add(new int[]{s * columns + t, grammar.lhs(rule), automaton.position(items[i])});
+                }
+            }
+        }
+
+        // Sort the reductions by cell into flat arrays
+        reductions.sort((a, b) -> Integer.compare(a[0], b[0]));
+        this.reduceVariable = new int[reductions.size()];
+        this.reduceLength = new int[reductions.size()];
+        for (int r = 0; r < reductions.size(); r++) {
+            int[] reduction = reductions.get(r);
+            reduceStart[reduction[0] + 1]++;
+            reduceVariable[r] = reduction[1];
+            reduceLength[r] = reduction[2];
+        }
+        for (int c = 0; c < states * columns; c++) reduceStart[c + 1] += reduceStart[c];
+    }
+
+    @Override
+    public boolean accepts(Word word) {
+        if (word == null) return false;
+
+        int[] input = grammar.toTerminals(word);
+        if (input == null) return false;
+        if (input.length == 0) return acceptsEmpty;
+        if (acceptState < 0) return false;
+
+        Stack stack = new Stack();
+        for (int terminal : input) {
+            if (!stack.read(terminal)) return false;
+        }
+        return stack.accepted();
+    }
+
+    @Override
+    public Recognizer recognizer() {
+        return new Stack();
+    }
+
+    @Override
+    public Alphabet getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * The graph-structured stack of one run. Nodes and edges are stored in flat int arrays, the edges of a node are a
+     * linked list starting at <code>edgeHead[node]</code>.
+     * <p>
+     * The level of a symbol is built when the next symbol, its lookahead, is read. Until then only the shifts of the
+     * symbol are pending, so the end of input can be tried as lookahead and undone again.
+     */
+    private final class Stack implements Recognizer {
+        // The number of symbols read
+        private int length = 0;
+        private boolean rejected;
+
+        private int[] nodeLabel = new int[64];
+        private int[] nodeLevel = new int[64];
+        private int[] edgeHead = new int[64];
+        private int nodes = 0;
+
+        private int[] edgeTarget = new int[64];
+        private int[] edgeNext = new int[64];
+        private int edges = 0;
+        // The edges created by reductions, as (from, to). Edges created by shifts are never duplicated.
+        private EarleyAcceptor.LongMap reduced = new EarleyAcceptor.LongMap();
+        // Used instead of reduced while the end of input is tried, so its edges are dropped with it
+        private final EarleyAcceptor.LongMap endReduced = new EarleyAcceptor.LongMap();
+
+        // The nodes of the current and the next level by state, valid if the level of the node matches
+        private int[] current = new int[states];
+        private int[] next = new int[states];
+
+        // The pending reductions (node, variable, length) and shifts (node, state)
+        private int[] reductions = new int[48];
+        private int pendingReductions = 0;
+        private int[] shifts = new int[32];
+        private int pendingShifts = 0;
+        private int[] nextShifts = new int[32];
+        private int pendingNextShifts = 0;
+
+        // Scratch space of reachable, a node is marked if mark[node] == generation
+        private int[] mark = new int[64];
+        private int generation = 0;
+        private int[] frontier = new int[16];
+        private int[] reached = new int[16];
+
+        private Stack() {
+            Arrays.fill(current, -1);
+            Arrays.fill(next, -1);
+            rejected = acceptState < 0 || !generatingStart;
+        }
+
+        @Override
+        public boolean push(int terminal) {
+            if (rejected) return false;
+            int lookahead = grammar.terminal(terminal);
+            if (lookahead < 0 || !read(lookahead)) {
+                rejected = true;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isViablePrefix() {
+            return !rejected;
+        }
+
+        @Override
+        public boolean isAccepted() {
+            return !rejected && accepted();
+        }
+
+        /**
+         * Builds the level of the symbols read so far with the terminal as lookahead, then reads the terminal.
+         *
+         * @return false if the terminal can not be shifted by any stack
+         */
+        private boolean read(int terminal) {
+            enter(terminal);
+            length++;
+            return pendingShifts > 0;
+        }
+
+        /**
+         * Builds the level of the symbols read so far with the end of input as lookahead, checks for the accepting
+         * state and removes the level again.
+         */
+        private boolean accepted() {
+            if (length == 0) return acceptsEmpty;
+
+            int savedNodes = nodes;
+            int savedEdges = edges;
+            int savedShifts = pendingShifts;
+            EarleyAcceptor.LongMap savedReduced = reduced;
+            endReduced.clear();
+            reduced = endReduced;
+
+            enter(grammar.terminals);
+            int accepting = current[acceptState];
+            boolean accepted = accepting >= 0 && nodeLevel[accepting] == length;
+
+            // All nodes and edges of the level are new and there are no shifts on the end of input
+            for (int n = savedNodes; n < nodes; n++) current[nodeLabel[n]] = -1;
+            int[] swap = current;
+            current = next;
+            next = swap;
+            swap = shifts;
+            shifts = nextShifts;
+            nextShifts = swap;
+            pendingShifts = savedShifts;
+            nodes = savedNodes;
+            edges = savedEdges;
+            reduced = savedReduced;
+            return accepted;
+        }
+
+        /**
+         * Builds the level of the symbols read so far: shifts the last symbol and applies all reductions with the
+         * lookahead. Afterwards, the pending shifts are the ones of the lookahead.
+         */
+        private void enter(int lookahead) {
+            if (length == 0) {
+                int v0 = node(0, 0);
+                current[0] = v0;
+                if (shift[lookahead] >= 0) addShift(v0, shift[lookahead]);
+                for (int r = reduceStart[lookahead]; r < reduceStart[lookahead + 1]; r++) {
+                    if (reduceLength[r] == 0) addReduction(v0, reduceVariable[r], 0);
+                }
+            } else {
+                shift(length - 1, lookahead);
+                int[] swap = current;
+                current = next;
+                next = swap;
+            }
+            while (pendingReductions > 0) reduce(length, lookahead);
+        }
+
+        private void reduce(int i, int lookahead) {
+            pendingReductions--;
+            int v = reductions[pendingReductions * 3];
+            int variable = reductions[pendingReductions * 3 + 1];
+            int length = reductions[pendingReductions * 3 + 2];
+
+            int count = length == 0 ? single(v) : reachable(v, length - 1);
+            for (int j = 0; j < count; j++) {
+                int u = reached[j];
+                int l = gotoTable[nodeLabel[u] * grammar.symbolCount() + variable];
+                int cell = l * columns + lookahead;
+                int w = current[l];
+
+                if (w >= 0 && nodeLevel[w] == i) {
+                    if (reduced.putIfAbsent((long) w << 32 | u, 0)) {
+                        edge(w, u);
+                        if (length != 0) addLongReductions(u, cell);
+                    }
+                } else {
+                    w = node(l, i);
+                    current[l] = w;
+                    edge(w, u);
+                    reduced.put((long) w << 32 | u, 0);
+
+                    if (shift[cell] >= 0) addShift(w, shift[cell]);
+                    for (int r = reduceStart[cell]; r < reduceStart[cell + 1]; r++) {
+                        if (reduceLength[r] == 0) addReduction(w, reduceVariable[r], 0);
+                    }
+                    if (length != 0) addLongReductions(u, cell);
+                }
+            }
+        }
+
+        private void shift(int i, int lookahead) {
+            pendingNextShifts = 0;
+
+            for (int s = 0; s < pendingShifts; s++) {
+                int v = shifts[s * 2];
+                int k = shifts[s * 2 + 1];
+                int cell = k * columns + lookahead;
+                int w = next[k];
+
+                if (w >= 0 && nodeLevel[w] == i + 1) {
+                    edge(w, v);
+                    addLongReductions(v, cell);
+                } else {
+                    w = node(k, i + 1);
+                    next[k] = w;
+                    edge(w, v);
+
+                    if (shift[cell] >= 0) addNextShift(w, shift[cell]);
+                    addLongReductions(v, cell);
+                    for (int r = reduceStart[cell]; r < reduceStart[cell + 1]; r++) {
+                        if (reduceLength[r] == 0) addReduction(w, reduceVariable[r], 0);
+                    }
+                }
+            }
+
+            int[] swap = shifts;
+            shifts = nextShifts;
+            nextShifts = swap;
+            pendingShifts = pendingNextShifts;
+        }
+
+        /**
+         * Adds all reductions of the cell that reduce at least one symbol, starting at the node below the new edge.
+         */
+        private void addLongReductions(int node, int cell) {
+            for (int r = reduceStart[cell]; r < reduceStart[cell + 1]; r++) {
+                if (reduceLength[r] != 0) addReduction(node, reduceVariable[r], reduceLength[r]);
+            }
+        }
+
+        private int single(int node) {
+            reached[0] = node;
+            return 1;
+        }
+
+        /**
+         * Collects the distinct nodes at the end of all paths of the given length from the node into
+         * <code>reached</code>.
+         *
+         * @return the number of nodes
+         */
+        private int reachable(int node, int length) {
+            int size = single(node);
+            for (int d = 0; d < length; d++) {
+                int[] swap = frontier;
+                frontier = reached;
+                reached = swap;
+                int frontierSize = size;
+
+                generation++;
+                size = 0;
+                for (int f = 0; f < frontierSize; f++) {
+                    for (int e = edgeHead[frontier[f]]; e >= 0; e = edgeNext[e]) {
+                        int target = edgeTarget[e];
+                        if (mark[target] == generation) continue;
+                        mark[target] = generation;
+                        if (size == reached.length) reached = Arrays.copyOf(reached, size * 2);
+                        reached[size++] = target;
+                    }
+                }
+            }
+            return size;
+        }
+
+        private int node(int label, int level) {
+            if (nodes == nodeLabel.length) {
+                nodeLabel = Arrays.copyOf(nodeLabel, nodes * 2);
+                nodeLevel = Arrays.copyOf(nodeLevel, nodes * 2);
+                edgeHead = Arrays.copyOf(edgeHead, nodes * 2);
+                mark = Arrays.copyOf(mark, nodes * 2);
+            }
+            nodeLabel[nodes] = label;
+            nodeLevel[nodes] = level;
+            edgeHead[nodes] = -1;
+            return nodes++;
+        }
+
+        private void edge(int from, int to) {
+            if (edges == edgeTarget.length) {
+                edgeTarget = Arrays.copyOf(edgeTarget, edges * 2);
+                edgeNext = Arrays.copyOf(edgeNext, edges * 2);
+            }
+            edgeTarget[edges] = to;
+            edgeNext[edges] = edgeHead[from];
+            edgeHead[from] = edges++;
+        }
+
+        private void addReduction(int node, int variable, int length) {
+            if (pendingReductions * 3 == reductions.length) reductions = Arrays.copyOf(reductions, reductions.length * 2);
+            reductions[pendingReductions * 3] = node;
+            reductions[pendingReductions * 3 + 1] = variable;
+            reductions[pendingReductions * 3 + 2] = length;
+            pendingReductions++;
+        }
+
+        private void addShift(int node, int state) {
+            if (pendingShifts * 2 == shifts.length) shifts = Arrays.copyOf(shifts, shifts.length * 2);
+            shifts[pendingShifts * 2] = node;
+            shifts[pendingShifts * 2 + 1] = state;
+            pendingShifts++;
+        }
+
+        private void addNextShift(int node, int state) {
+            if (pendingNextShifts * 2 == nextShifts.length) nextShifts = Arrays.copyOf(nextShifts, nextShifts.length * 2);
+            nextShifts[pendingNextShifts * 2] = node;
+            nextShifts[pendingNextShifts * 2 + 1] = state;
+            pendingNextShifts++;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package grammar.acceptors;
+
+import context_free_acceptor.ContextFreeAcceptor;
+import context_free_acceptor.Recognizer;
+import grammar.Alphabet;
+import grammar.CompiledGrammar;
+import grammar.ContextFreeGrammar;
+import symbols.TerminalSymbol;
+import symbols.Word;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A table-driven shift-reduce recognizer for <a href="https://en.wikipedia.org/wiki/LALR_parser">LALR(1)</a>
+ * grammars, which include left-recursive grammars like <code>E -> E+T | T</code>.
+ * <p>
+ * The tables are built from the {@link LRAutomaton LR(0) automaton} of the grammar with LALR(1) lookaheads. The
+ * action and goto tables are dense int arrays, so the recognizer runs in linear time with a primitive int stack of
+ * states.
+ * <p>
+ * If the grammar is not LALR(1), the {@link #getConflicts() conflicts} tell which state and lookahead have more than one
+ * action, and {@link #accepts(Word)} throws an exception.
+ *
+ * @author Matthias Harzer
+ */
+public class LALR1Acceptor implements ContextFreeAcceptor {
+    private final CompiledGrammar grammar;
+    private final Alphabet alphabet;
+    private final int states;
+    // The terminals plus the end of input
+    private final int columns;
+    // By state * columns + terminal: 0 for an error, s + 1 to shift to state s, -(r + 1) to reduce rule r.
+    // Reducing the rule S' -> S of the new start variable accepts the word.
+    private final int[] action;
+    // By state * variables + (variable - terminals): the state after reducing the variable, or -1
+    private final int[] gotoTable;
+    // The length of the right-hand side of every rule, including S' -> S
+    private final int[] ruleLength;
+    // Whether the start variable derives a word, otherwise not even the empty input is a viable prefix
+    private final boolean generatingStart;
+    private final List<Conflict> conflicts;
+
+    /**
+     * A cell of the action table that would need two actions. The action that is kept in the table comes first:
+     * shifts win over reductions, and rules that come first in the grammar win over later ones.
+     *
+     * @param kind      the kind of the conflict
+     * @param state     the state of the LR(0) automaton
+     * @param lookahead the lookahead terminal, or null for the end of the input
+     * @param first     the action in the table, like <code>shift</code> or <code>reduce E -> E+T</code>
+     * @param second    the colliding action
+     */
+    public record Conflict(Kind kind, int state, TerminalSymbol lookahead, String first, String second) {
+        public enum Kind {
+            SHIFT_REDUCE,
+            REDUCE_REDUCE
+        }
+
+        @Override
+        public String toString() {
+            return "%s conflict in state %d on %s: %s | %s".formatted(kind, state, lookahead == null ? "end of input" : "'" + lookahead + "'", first, second);
+        }
+    }
+
+    public LALR1Acceptor(ContextFreeGrammar grammar) {
+        this(grammar.compile());
+    }
+
+    public LALR1Acceptor(CompiledGrammar grammar) {
+        this.grammar = grammar;
+        this.alphabet = grammar.getAlphabet();
+        this.columns = grammar.terminals + 1;
+
+        LRAutomaton automaton = new LRAutomaton(grammar);
+        this.generatingStart = grammar.generating()[grammar.start()];
+        this.states = automaton.states();
+        this.ruleLength = new int[grammar.rules() + 1];
+        for (int r = 0; r < ruleLength.length; r++) ruleLength[r] = automaton.ruleLength(r);
+        this.action = new int[states * columns];
+        this.gotoTable = new int[states * grammar.variables];
+        Arrays.fill(gotoTable, -1);
+
+        List<Conflict> conflicts = new ArrayList<>();
+        for (int s = 0; s < states; s++) {
+            int[] items = automaton.items(s);
+
+            for (int item : items) {
+                int next = automaton.next(item);
+                if (next < 0) continue;
+                int target = automaton.target(s, next);
+                if (grammar.isTerminal(next)) action[s * columns + next] = target + 1;
+                else gotoTable[s * grammar.variables + next - grammar.terminals] = target;
+            }
+
+            for (int i = 0; i < items.length; i++) {
+                if (automaton.next(items[i]) >= 0) continue;
+                int rule = automaton.rule(items[i]);
+                BitSet lookahead = automaton.lookahead(s, i);
+                for (int t = lookahead.nextSetBit(0); t >= 0; t = lookahead.nextSetBit(t + 1)) {
+                    int cell = s * columns + t;
+                    if (action[cell] == 0) {
+                        action[cell] = -(rule + 1);
+                        continue;
+                    }
+
+                    Conflict.Kind kind = action[cell] > 0 ? Conflict.Kind.SHIFT_REDUCE : Conflict.Kind.REDUCE_REDUCE;
+                    conflicts.add(new Conflict(kind, s, t < grammar.terminals ? grammar.terminalSymbol(t) : null,
+                            describe(action[cell]), describe(-(rule + 1))));
+                }
+            }
+        }
+        this.conflicts = Collections.unmodifiableList(conflicts);
+    }
+
+    private String describe(int action) {
+        if (action > 0) return "shift";
+        int rule = -action - 1;
+        if (rule == grammar.rules()) return "accept";
+
+        StringBuilder sb = new StringBuilder("reduce ").append(grammar.symbol(grammar.lhs(rule))).append(" -> ");
+        for (int s : grammar.rhs(rule)) sb.append(grammar.symbol(s));
+        if (grammar.rhs(rule).length == 0) sb.append("ε");
+        return sb.toString();
+    }
+
+    /**
+     * @return true if the grammar is LALR(1), so words can be accepted
+     */
+    public boolean isLALR1() {
+        return conflicts.isEmpty();
+    }
+
+    /**
+     * @return all conflicts of the action table, empty if the grammar is LALR(1)
+     */
+    public List<Conflict> getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * @return the number of states of the automaton
+     */
+    public int stateCount() {
+        return states;
+    }
+
+    /**
+     * @throws IllegalStateException if the grammar is not LALR(1)
+     */
+    @Override
+    public boolean accepts(Word word) {
+        if (!isLALR1()) throw new IllegalStateException("The grammar is not LALR(1): " + conflicts.get(0));
+        if (word == null) return false;
+
+        int position = 0;
+        int lookahead = lookahead(word, position);
+
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = 0;
+
+        while (lookahead >= 0) {
+            int state = stack[top - 1];
+            int next = action[state * columns + lookahead];
+
+            if (next > 0) {
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = next - 1;
+                lookahead = lookahead(word, ++position);
+            } else if (next < 0) {
+                int rule = -next - 1;
+                if (rule == grammar.rules()) return true;
+
+                top -= ruleLength[rule];
+                int target = gotoTable[stack[top - 1] * grammar.variables + grammar.lhs(rule) - grammar.terminals];
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = target;
+            } else {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the terminal at the given position, the end of input after the last symbol, or -1 for an unknown symbol
+     */
+    private int lookahead(Word word, int position) {
+        return position < word.length() ? grammar.terminal(word.terminalIdAt(position)) : grammar.terminals;
+    }
+
+    /**
+     * @throws IllegalStateException if the grammar is not LALR(1)
+     */
+    @Override
+    public Recognizer recognizer() {
+        if (!isLALR1()) throw new IllegalStateException("The grammar is not LALR(1): " + conflicts.get(0));
+        return new Session();
+    }
+
+    @Override
+    public Alphabet getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * The shift-reduce parser of one input. The stack only grows with the nesting depth of the input.
+     * <p>
+     * The parser only shifts a symbol if the stack stays a prefix of the language, so every input that is not
+     * rejected is a viable prefix.
+     */
+    private final class Session implements Recognizer {
+        private int[] stack = new int[16];
+        private int top = 0;
+        private boolean rejected;
+
+        private Session() {
+            stack[top++] = 0;
+            rejected = !generatingStart;
+        }
+
+        @Override
+        public boolean push(int terminal) {
+            if (rejected) return false;
+            int lookahead = grammar.terminal(terminal);
+            if (lookahead < 0) return reject();
+
+            while (true) {
+                int next = action[stack[top - 1] * columns + lookahead];
+                if (next == 0) return reject();
+
+                int target;
+                if (next > 0) {
+                    target = next - 1;
+                } else {
+                    int rule = -next - 1;
+                    top -= ruleLength[rule];
+                    target = gotoTable[stack[top - 1] * grammar.variables + grammar.lhs(rule) - grammar.terminals];
+                }
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = target;
+                if (next > 0) return true;
+            }
+        }
+
+        private boolean reject() {
+            rejected = true;
+            return false;
+        }
+
+        @Override
+        public boolean isViablePrefix() {
+            return !rejected;
+        }
+
+        /**
+         * Runs the reductions of the end of input on a copy of the stack, so more symbols can be pushed afterwards.
+         */
+        @Override
+        public boolean isAccepted() {
+            if (rejected) return false;
+            int[] stack = Arrays.copyOf(this.stack, this.stack.length);
+            int top = this.top;
+
+            while (true) {
+                int next = action[stack[top - 1] * columns + grammar.terminals];
+                if (next >= 0) return false;
+
+                int rule = -next - 1;
+                if (rule == grammar.rules()) return true;
+
+                top -= ruleLength[rule];
+                int target = gotoTable[stack[top - 1] * grammar.variables + grammar.lhs(rule) - grammar.terminals];
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = target;
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package grammar.acceptors;
+
+import context_free_acceptor.ContextFreeAcceptor;
+import context_free_acceptor.Recognizer;
+import grammar.Alphabet;
+import grammar.CompiledGrammar;
+import grammar.ContextFreeGrammar;
+import grammar.FirstFollow;
+import symbols.Symbol;
+import symbols.TerminalSymbol;
+import symbols.VariableSymbol;
+import symbols.Word;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A predictive <a href="https://en.wikipedia.org/wiki/LL_parser">LL(1)</a> recognizer for
+ * {@link ContextFreeGrammar ContextFreeGrammars}.
+ * <p>
+ * The parse table is a dense int array that holds the rule to expand for every variable and lookahead terminal. The
+ * recognizer runs in linear time with a primitive int stack and does not allocate per input symbol.
+ * <p>
+ * If the grammar is not LL(1), the table can not be built unambiguously. The {@link #getConflicts() conflicts} tell
+ * which variable, lookahead and rules collide, and {@link #accepts(Word)} throws an exception.
+ *
+ * @author Matthias Harzer
+ */
+public class LL1Acceptor implements ContextFreeAcceptor {
+    private final CompiledGrammar grammar;
+    private final Alphabet alphabet;
+    // The terminals plus the end of input
+    private final int columns;
+    // The rule to expand for variable v and lookahead t at (v - terminals) * columns + t, or -1
+    private final int[] table;
+    // Whether a symbol derives a word, a prefix is only viable if the whole stack does
+    private final boolean[] generating;
+    private final List<Conflict> conflicts;
+
+    /**
+     * A cell of the parse table that would need two rules.
+     *
+     * @param kind      why both rules apply
+     * @param variable  the variable to expand
+     * @param lookahead the lookahead terminal, or null for the end of the input
+     * @param first     the right-hand side of the rule that is in the table
+     * @param second    the right-hand side of the colliding rule
+     */
+    public record Conflict(Kind kind, VariableSymbol variable, TerminalSymbol lookahead, Word first, Word second) {
+        public enum Kind {
+            /**
+             * The lookahead is in FIRST of both right-hand sides.
+             */
+            FIRST_FIRST,
+            /**
+             * The lookahead is in FIRST of one right-hand side, the other one is nullable and the lookahead is in
+             * FOLLOW of the variable.
+             */
+            FIRST_FOLLOW,
+            /**
+             * Both right-hand sides are nullable.
+             */
+            FOLLOW_FOLLOW
+        }
+
+        @Override
+        public String toString() {
+            return "%s conflict for %s on %s: %s -> %s | %s".formatted(kind, variable, lookahead == null ? "end of input" : "'" + lookahead + "'",
+                    variable, first.isEmpty() ? "ε" : first, second.isEmpty() ? "ε" : second);
+        }
+    }
+
+    public LL1Acceptor(ContextFreeGrammar grammar) {
+        this(grammar.compile());
+    }
+
+    public LL1Acceptor(CompiledGrammar grammar) {
+        this.grammar = grammar;
+        this.alphabet = grammar.getAlphabet();
+        this.columns = grammar.terminals + 1;
+        this.table = new int[grammar.variables * columns];
+        Arrays.fill(table, -1);
+        this.generating = grammar.generating();
+
+        FirstFollow sets = new FirstFollow(grammar);
+        // Whether the entry of a cell was added because of FOLLOW
+        boolean[] byFollow = new boolean[table.length];
+        List<Conflict> conflicts = new ArrayList<>();
+
+        for (int r = 0; r < grammar.rules(); r++) {
+            int variable = grammar.lhs(r);
+            int[] rhs = grammar.rhs(r);
+
+            BitSet first = sets.first(rhs, 0);
+            for (int t = first.nextSetBit(0); t >= 0; t = first.nextSetBit(t + 1)) {
+                add(variable, t, r, false, byFollow, conflicts);
+            }
+            if (sets.isNullable(rhs, 0)) {
+                BitSet follow = sets.follow(variable);
+                for (int t = follow.nextSetBit(0); t >= 0; t = follow.nextSetBit(t + 1)) {
+                    // A FIRST entry of the same rule wins, the cell is not a conflict
+                    if (!first.get(t)) add(variable, t, r, true, byFollow, conflicts);
+                }
+            }
+        }
+        this.conflicts = Collections.unmodifiableList(conflicts);
+    }
+
+    private void add(int variable, int terminal, int rule, boolean follow, boolean[] byFollow, List<Conflict> conflicts) {
+        int cell = (variable - grammar.terminals) * columns + terminal;
+        int existing = table[cell];
+        if (existing < 0) {
+            table[cell] = rule;
+            byFollow[cell] = follow;
+            return;
+        }
+
+        Conflict.Kind kind;
+        if (byFollow[cell] && follow) kind = Conflict.Kind.FOLLOW_FOLLOW;
+        else if (byFollow[cell] || follow) kind = Conflict.Kind.FIRST_FOLLOW;
+        else kind = Conflict.Kind.FIRST_FIRST;
+
+        conflicts.add(new Conflict(kind, grammar.variableSymbol(variable),
+                terminal < grammar.terminals ? grammar.terminalSymbol(terminal) : null, word(existing), word(rule)));
+    }
+
+    private Word word(int rule) {
+        return new Word(Arrays.stream(grammar.rhs(rule)).mapToObj(grammar::symbol).toArray(Symbol[]::new));
+    }
+
+    /**
+     * @return true if the grammar is LL(1), so words can be accepted
+     */
+    public boolean isLL1() {
+        return conflicts.isEmpty();
+    }
+
+    /**
+     * @return all conflicts of the parse table, empty if the grammar is LL(1)
+     */
+    public List<Conflict> getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * @throws IllegalStateException if the grammar is not LL(1)
+     */
+    @Override
+    public boolean accepts(Word word) {
+        if (!isLL1()) throw new IllegalStateException("The grammar is not LL(1): " + conflicts.get(0));
+        if (word == null) return false;
+
+        int position = 0;
+        int lookahead = lookahead(word, position);
+
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = grammar.start();
+
+        while (top > 0) {
+            int symbol = stack[--top];
+
+            if (grammar.isTerminal(symbol)) {
+                if (symbol != lookahead) return false;
+                lookahead = lookahead(word, ++position);
+                continue;
+            }
+
+            if (lookahead < 0) return false;
+            int rule = table[(symbol - grammar.terminals) * columns + lookahead];
+            if (rule < 0) return false;
+
+            int[] rhs = grammar.rhs(rule);
+            if (top + rhs.length > stack.length) stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + rhs.length));
+            for (int i = rhs.length - 1; i >= 0; i--) stack[top++] = rhs[i];
+        }
+
+        return lookahead == grammar.terminals;
+    }
+
+    /**
+     * @return the terminal at the given position, the end of input after the last symbol, or -1 for an unknown symbol
+     */
+    private int lookahead(Word word, int position) {
+        return position < word.length() ? grammar.terminal(word.terminalIdAt(position)) : grammar.terminals;
+    }
+
+    /**
+     * @throws IllegalStateException if the grammar is not LL(1)
+     */
+    @Override
+    public Recognizer recognizer() {
+        if (!isLL1()) throw new IllegalStateException("The grammar is not LL(1): " + conflicts.get(0));
+        return new Session();
+    }
+
+    @Override
+    public Alphabet getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * The predictive parser of one input. The stack only grows with the nesting depth of the input.
+     * <p>
+     * Since the parser is deterministic, its stack is the only way to continue the input. So the input is a viable
+     * prefix if every symbol on the stack derives a word, which is tracked by counting the other symbols.
+     */
+    private final class Session implements Recognizer {
+        private int[] stack = new int[16];
+        private int top = 0;
+        // The number of symbols on the stack that derive no word
+        private int useless = 0;
+        private boolean rejected = false;
+
+        private Session() {
+            pushSymbol(grammar.start());
+            if (useless > 0) rejected = true;
+        }
+
+        @Override
+        public boolean push(int terminal) {
+            if (rejected) return false;
+            int lookahead = grammar.terminal(terminal);
+            if (lookahead < 0) return reject();
+
+            while (top > 0) {
+                int symbol = popSymbol();
+
+                if (grammar.isTerminal(symbol)) {
+                    return symbol == lookahead && useless == 0 || reject();
+                }
+
+                int rule = table[(symbol - grammar.terminals) * columns + lookahead];
+                if (rule < 0) return reject();
+
+                int[] rhs = grammar.rhs(rule);
+                if (top + rhs.length > stack.length) stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + rhs.length));
+                for (int i = rhs.length - 1; i >= 0; i--) pushSymbol(rhs[i]);
+            }
+            return reject();
+        }
+
+        private void pushSymbol(int symbol) {
+            stack[top++] = symbol;
+            if (!generating[symbol]) useless++;
+        }
+
+        private int popSymbol() {
+            int symbol = stack[--top];
+            if (!generating[symbol]) useless--;
+            return symbol;
+        }
+
+        private boolean reject() {
+            rejected = true;
+            return false;
+        }
+
+        @Override
+        public boolean isViablePrefix() {
+            return !rejected;
+        }
+
+        /**
+         * At the end of the input, only variables that are expanded on the end of input may be left on the stack.
+         * Their rules are nullable and consist of such variables only, so the stack does not have to be expanded.
+         */
+        @Override
+        public boolean isAccepted() {
+            if (rejected) return false;
+            for (int i = 0; i < top; i++) {
+                if (grammar.isTerminal(stack[i])) return false;
+                if (table[(stack[i] - grammar.terminals) * columns + grammar.terminals] < 0) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package grammar.acceptors;
+
+import grammar.CompiledGrammar;
+import grammar.FirstFollow;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The LR(0) automaton of a {@link CompiledGrammar} with LALR(1) lookaheads, the base of the {@link LALR1Acceptor} and
+ * the {@link GLRAcceptor}.
+ * <p>
+ * An item is a dotted rule, numbered like in the {@link EarleyAcceptor}: the items of rule r are
+ * <code>ruleStart[r]</code> to <code>ruleStart[r] + |rhs(r)|</code>. The rule <code>rules()</code> is the rule
+ * S' -> S of a new start variable, and state 0 is the state of S' -> ·S. The lookaheads are computed as the least
+ * fixpoint of their propagation through the closure of every state and along the goto edges.
+ * <p>
+ * Rules with a symbol that derives no word are left out of the closures, since they can never be used in a
+ * derivation. So every stack of states that the automaton reaches is the prefix of a word of the language.
+ *
+ * @author Matthias Harzer
+ */
+final class LRAutomaton {
+    private final CompiledGrammar grammar;
+    private final int[] ruleStart;
+    private final int[] ruleLength;
+    private final int[] dotRule;
+    // The symbol after the dot, or -1 if the dot is at the end
+    private final int[] dotNext;
+    // FIRST of the symbols after the next symbol, and whether they are all nullable
+    private final BitSet[] dotFirst;
+    private final boolean[] dotNullable;
+    private final boolean[] nullable;
+    // Whether all symbols of a rule derive a word
+    private final boolean[] useful;
+
+    // By state: the kernel items, all items of the closure, the lookahead of every item and the goto by symbol
+    private final List<int[]> kernels = new ArrayList<>();
+    private final List<int[]> items = new ArrayList<>();
+    private final List<BitSet[]> lookaheads = new ArrayList<>();
+    private final List<int[]> transitions = new ArrayList<>();
+    private final List<Map<Integer, Integer>> indices = new ArrayList<>();
+
+    LRAutomaton(CompiledGrammar grammar) {
+        this.grammar = grammar;
+        FirstFollow sets = new FirstFollow(grammar);
+        this.nullable = grammar.nullable();
+        boolean[] generating = grammar.generating();
+        this.useful = new boolean[grammar.rules()];
+        for (int r = 0; r < useful.length; r++) {
+            useful[r] = Arrays.stream(grammar.rhs(r)).allMatch(s -> generating[s]);
+        }
+
+        int rules = grammar.rules() + 1;
+        this.ruleStart = new int[rules];
+        this.ruleLength = new int[rules];
+        int dots = 0;
+        for (int r = 0; r < rules; r++) {
+            ruleStart[r] = dots;
+            ruleLength[r] = rhs(r).length;
+            dots += ruleLength[r] + 1;
+        }
+
+        this.dotRule = new int[dots];
+        this.dotNext = new int[dots];
+        this.dotFirst = new BitSet[dots];
+        this.dotNullable = new boolean[dots];
+        for (int r = 0; r < rules; r++) {
+            int[] rhs = rhs(r);
+            for (int d = 0; d <= rhs.length; d++) {
+                int dot = ruleStart[r] + d;
+                dotRule[dot] = r;
+                dotNext[dot] = d < rhs.length ? rhs[d] : -1;
+                dotFirst[dot] = sets.first(rhs, d + 1);
+                dotNullable[dot] = sets.isNullable(rhs, d + 1);
+            }
+        }
+
+        buildStates();
+        propagateLookaheads();
+    }
+
+    private int[] rhs(int rule) {
+        return rule < grammar.rules() ? grammar.rhs(rule) : new int[]{grammar.start()};
+    }
+
+    int states() {
+        return kernels.size();
+    }
+
+    /**
+     * @return all items of the closure of the given state. The array must not be modified.
+     */
+    int[] items(int state) {
+        return items.get(state);
+    }
+
+    /**
+     * @return the lookahead of the item at the given index of {@link #items(int)}, including the end of input
+     */
+    BitSet lookahead(int state, int index) {
+        return lookaheads.get(state)[index];
+    }
+
+    /**
+     * @return the state after the given symbol, or -1 if there is none
+     */
+    int target(int state, int symbol) {
+        return transitions.get(state)[symbol];
+    }
+
+    int rule(int item) {
+        return dotRule[item];
+    }
+
+    /**
+     * @return the symbol after the dot, or -1 if the dot is at the end
+     */
+    int next(int item) {
+        return dotNext[item];
+    }
+
+    /**
+     * @return the number of symbols before the dot
+     */
+    int position(int item) {
+        return item - ruleStart[dotRule[item]];
+    }
+
+    int ruleLength(int rule) {
+        return ruleLength[rule];
+    }
+
+    /**
+     * @return true if all symbols after the dot are nullable, which includes items with the dot at the end
+     */
+    boolean isRightNullable(int item) {
+        return dotNext[item] < 0 || nullable[dotNext[item]] && dotNullable[item];
+    }
+
+    private void buildStates() {
+        Map<List<Integer>, Integer> ids = new HashMap<>();
+        Deque<Integer> queue = new ArrayDeque<>();
+        addState(new int[]{ruleStart[grammar.rules()]}, ids, queue);
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int[] closure = items.get(state);
+
+            // The kernel of the goto of every symbol, in the order of the items
+            Map<Integer, List<Integer>> gotoKernels = new HashMap<>();
+            List<Integer> symbols = new ArrayList<>();
+            for (int item : closure) {
+                int next = dotNext[item];
+                if (next < 0) continue;
+                if (!gotoKernels.containsKey(next)) symbols.add(next);
+                gotoKernels.computeIfAbsent(next, k -> new ArrayList<>()).add(item + 1);
+            }
+
+            int[] row = new int[grammar.symbolCount()];
+            Arrays.fill(row, -1);
+            for (int symbol : symbols) {
+                int[] kernel = gotoKernels.get(symbol).stream().mapToInt(Integer::intValue).sorted().toArray();
+                row[symbol] = addState(kernel, ids, queue);
+            }
+            transitions.set(state, row);
+        }
+    }
+
+    private int addState(int[] kernel, Map<List<Integer>, Integer> ids, Deque<Integer> queue) {
+        List<Integer> key = Arrays.stream(kernel).boxed().toList();
+        Integer id = ids.get(key);
+        if (id != null) return id;
+
+        id = kernels.size();
+        ids.put(key, id);
+        kernels.add(kernel);
+
+        Set<Integer> closure = new LinkedHashSet<>();
+        for (int item : kernel) closure.add(item);
+        Deque<Integer> pending = new ArrayDeque<>(closure);
+        while (!pending.isEmpty()) {
+            int next = dotNext[pending.poll()];
+            if (next < 0 || grammar.isTerminal(next)) continue;
+            for (int r : grammar.rulesOf(next)) {
+                if (useful[r] && closure.add(ruleStart[r])) pending.add(ruleStart[r]);
+            }
+        }
+
+        int[] all = closure.stream().mapToInt(Integer::intValue).toArray();
+        Map<Integer, Integer> index = new HashMap<>();
+        BitSet[] lookahead = new BitSet[all.length];
+        for (int i = 0; i < all.length; i++) {
+            index.put(all[i], i);
+            lookahead[i] = new BitSet();
+        }
+        items.add(all);
+        indices.add(index);
+        lookaheads.add(lookahead);
+        transitions.add(null);
+        queue.add(id);
+        return id;
+    }
+
+    /**
+     * Propagates the lookaheads from the end of input after S' -> ·S through the closure of every state and along
+     * the goto edges, until nothing changes.
+     */
+    private void propagateLookaheads() {
+        lookaheads.get(0)[0].set(grammar.terminals);
+
+        // Every state is processed once for the lookaheads generated by its own closure
+        Deque<Integer> queue = new ArrayDeque<>();
+        boolean[] queued = new boolean[kernels.size()];
+        for (int s = 0; s < kernels.size(); s++) {
+            queue.add(s);
+            queued[s] = true;
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            queued[state] = false;
+            int[] closure = items.get(state);
+            BitSet[] lookahead = lookaheads.get(state);
+            Map<Integer, Integer> index = indices.get(state);
+
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int i = 0; i < closure.length; i++) {
+                    int next = dotNext[closure[i]];
+                    if (next < 0 || grammar.isTerminal(next)) continue;
+
+                    BitSet propagated = (BitSet) dotFirst[closure[i]].clone();
+                    if (dotNullable[closure[i]]) propagated.or(lookahead[i]);
+                    for (int r : grammar.rulesOf(next)) {
+                        if (useful[r]) changed |= addAll(lookahead[index.get(ruleStart[r])], propagated);
+                    }
+                }
+            }
+
+            for (int i = 0; i < closure.length; i++) {
+                int next = dotNext[closure[i]];
+                if (next < 0) continue;
+                int target = transitions.get(state)[next];
+                BitSet targetLookahead = lookaheads.get(target)[indices.get(target).get(closure[i] + 1)];
+                if (addAll(targetLookahead, lookahead[i]) && !queued[target]) {
+                    queue.add(target);
+                    queued[target] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds all bits of the source to the target.
+     *
+     * @return true if the target changed
+     */
+    private static boolean addAll(BitSet target, BitSet source) {
+        int before = target.cardinality();
+        target.or(source);
+        return target.cardinality() != before;
+    }
+}
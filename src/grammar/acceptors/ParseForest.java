@@ -0,0 +1,358 @@
+package grammar.acceptors;
+
+import grammar.CompiledGrammar;
+import grammar.ContextFreeGrammar;
+import symbols.Symbol;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A shared packed parse forest (SPPF): all derivations of one word in a {@link ContextFreeGrammar}, built by
+ * {@link EarleyAcceptor#parse(symbols.Word)}.
+ * <p>
+ * Every node stands for a span of the input. A symbol node <code>(X, i, j)</code> means that X derives the symbols i to
+ * j - 1. An intermediate node <code>(A -> X1..Xd·β, i, j)</code> means that X1 to Xd derive them; it binarizes long
+ * rules, so the forest has at most O(n³) families. Every node has one or more <i>families</i> (packed nodes), one for
+ * each way to derive its span:
+ * <ul>
+ *     <li>a family of a symbol node has a rule, its last symbol as right child and the intermediate node of the other
+ *     symbols as left child. The left child is the symbol node of the first symbol for rules with two symbols, and
+ *     -1 for rules with less than two symbols. The right child is -1 for empty rules.</li>
+ *     <li>a family of an intermediate node has the intermediate node of one symbol less as left child, and the node
+ *     of its last symbol as right child</li>
+ * </ul>
+ * Nodes are shared between all derivations they are part of, so an ambiguous word never multiplies the forest. The
+ * derivations are only built as {@link ParseTree ParseTrees} while {@link #iterator() iterating}. Cyclic grammars can
+ * derive a span from itself, like <code>A -> A</code>; the iterator skips such derivations, so every tree is finite.
+ * <p>
+ * Nodes and families are ints, symbols are the ids of the {@link CompiledGrammar}.
+ *
+ * @author Matthias Harzer
+ */
+public final class ParseForest implements Iterable<ParseTree> {
+    private final CompiledGrammar grammar;
+    private int root = -1;
+
+    // The symbol of a symbol node, or -1 for an intermediate node
+    private int[] nodeSymbol = new int[64];
+    // The rule and the position of the dot of an intermediate node
+    private int[] nodeRule = new int[64];
+    private int[] nodeDot = new int[64];
+    private int[] nodeStart = new int[64];
+    private int[] nodeEnd = new int[64];
+    // The families of every node as linked lists
+    private int[] firstFamily = new int[64];
+    private int[] lastFamily = new int[64];
+    private int[] familyCount = new int[64];
+    private int nodes = 0;
+
+    private int[] familyRule = new int[64];
+    private int[] familyLeft = new int[64];
+    private int[] familyRight = new int[64];
+    private int[] nextFamily = new int[64];
+    private int families = 0;
+
+    ParseForest(CompiledGrammar grammar) {
+        this.grammar = grammar;
+    }
+
+    int addNode(int symbol, int rule, int dot, int start, int end) {
+        if (nodes == nodeSymbol.length) {
+            nodeSymbol = Arrays.copyOf(nodeSymbol, nodes * 2);
+            nodeRule = Arrays.copyOf(nodeRule, nodes * 2);
+            nodeDot = Arrays.copyOf(nodeDot, nodes * 2);
+            nodeStart = Arrays.copyOf(nodeStart, nodes * 2);
+            nodeEnd = Arrays.copyOf(nodeEnd, nodes * 2);
+            firstFamily = Arrays.copyOf(firstFamily, nodes * 2);
+            lastFamily = Arrays.copyOf(lastFamily, nodes * 2);
+            familyCount = Arrays.copyOf(familyCount, nodes * 2);
+        }
+        nodeSymbol[nodes] = symbol;
+        nodeRule[nodes] = rule;
+        nodeDot[nodes] = dot;
+        nodeStart[nodes] = start;
+        nodeEnd[nodes] = end;
+        firstFamily[nodes] = -1;
+        return nodes++;
+    }
+
+    void addFamily(int node, int rule, int left, int right) {
+        if (families == familyRule.length) {
+            familyRule = Arrays.copyOf(familyRule, families * 2);
+            familyLeft = Arrays.copyOf(familyLeft, families * 2);
+            familyRight = Arrays.copyOf(familyRight, families * 2);
+            nextFamily = Arrays.copyOf(nextFamily, families * 2);
+        }
+        familyRule[families] = rule;
+        familyLeft[families] = left;
+        familyRight[families] = right;
+        // Appending keeps the families in the order of the rules and splits
+        nextFamily[families] = -1;
+        if (firstFamily[node] < 0) firstFamily[node] = families;
+        else nextFamily[lastFamily[node]] = families;
+        lastFamily[node] = families;
+        familyCount[node]++;
+        families++;
+    }
+
+    void setRoot(int root) {
+        this.root = root;
+    }
+
+    public CompiledGrammar getGrammar() {
+        return grammar;
+    }
+
+    /**
+     * @return the symbol node of the start variable that spans the whole word
+     */
+    public int root() {
+        return root;
+    }
+
+    public int nodeCount() {
+        return nodes;
+    }
+
+    public int familyCount() {
+        return families;
+    }
+
+    /**
+     * @return true if the node is an intermediate node of a binarized rule
+     */
+    public boolean isIntermediate(int node) {
+        return nodeSymbol[node] < 0;
+    }
+
+    /**
+     * @return the symbol of a symbol node, or -1 for an intermediate node
+     */
+    public int symbol(int node) {
+        return nodeSymbol[node];
+    }
+
+    /**
+     * @return the rule of an intermediate node, or -1 for a symbol node
+     */
+    public int rule(int node) {
+        return isIntermediate(node) ? nodeRule[node] : -1;
+    }
+
+    /**
+     * @return the number of symbols of the rule that an intermediate node spans, or -1 for a symbol node
+     */
+    public int dot(int node) {
+        return isIntermediate(node) ? nodeDot[node] : -1;
+    }
+
+    /**
+     * @return the position of the first symbol of the span
+     */
+    public int start(int node) {
+        return nodeStart[node];
+    }
+
+    /**
+     * @return the position after the last symbol of the span
+     */
+    public int end(int node) {
+        return nodeEnd[node];
+    }
+
+    /**
+     * @return the families of the node, ordered by rule and by the position where the last symbol starts
+     */
+    public int[] families(int node) {
+        int[] result = new int[familyCount[node]];
+        int i = 0;
+        for (int f = firstFamily[node]; f >= 0; f = nextFamily[f]) result[i++] = f;
+        return result;
+    }
+
+    /**
+     * @return the rule of a family of a symbol node, or -1 for a family of an intermediate node
+     */
+    public int familyRule(int family) {
+        return familyRule[family];
+    }
+
+    public int left(int family) {
+        return familyLeft[family];
+    }
+
+    public int right(int family) {
+        return familyRight[family];
+    }
+
+    /**
+     * @return true if a node has more than one family, so the word has more than one derivation
+     */
+    public boolean isAmbiguous() {
+        for (int node = 0; node < nodes; node++) {
+            if (familyCount[node] > 1) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Enumerates the derivations of the word lazily: every call of {@link Iterator#next()} builds one tree from the
+     * forest, so an ambiguous word with exponentially many trees only ever holds one of them. The trees are
+     * enumerated depth first by the choice of the family at every node.
+     */
+    @Override
+    public Iterator<ParseTree> iterator() {
+        return new Iterator<>() {
+            private final Enumeration enumeration = new Enumeration();
+            private ParseTree next = enumeration.next(false);
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public ParseTree next() {
+                if (next == null) throw new NoSuchElementException();
+                ParseTree tree = next;
+                next = enumeration.next(true);
+                return tree;
+            }
+        };
+    }
+
+    /**
+     * Walks the forest depth first and remembers the family chosen at every node with more than one family. The next
+     * tree is found by advancing the last choice that has another family left, like an odometer.
+     */
+    private final class Enumeration {
+        // The chosen family and the number of families of every choice, in the order they were made
+        private int[] choice = new int[16];
+        private int[] choiceCount = new int[16];
+        private int choices = 0;
+        private int cursor;
+        private boolean done = false;
+        private final boolean[] onPath = new boolean[nodes];
+
+        /**
+         * @param advance false for the first tree
+         * @return the next tree, or null if there is none
+         */
+        private ParseTree next(boolean advance) {
+            if (done || root < 0) return null;
+            if (advance && !advance()) return null;
+            while (true) {
+                ParseTree tree = build();
+                if (tree != null) return tree;
+                if (!advance()) return null;
+            }
+        }
+
+        private boolean advance() {
+            while (choices > 0 && choice[choices - 1] + 1 == choiceCount[choices - 1]) choices--;
+            if (choices == 0) {
+                done = true;
+                return false;
+            }
+            choice[choices - 1]++;
+            return true;
+        }
+
+        /**
+         * Picks the family of the node, replaying the recorded choice or recording the first family.
+         */
+        private int choose(int node) {
+            int count = familyCount[node];
+            int index;
+            if (count == 1) {
+                index = 0;
+            } else if (cursor < choices) {
+                index = choice[cursor++];
+            } else {
+                if (choices == choice.length) {
+                    choice = Arrays.copyOf(choice, choices * 2);
+                    choiceCount = Arrays.copyOf(choiceCount, choices * 2);
+                }
+                choice[choices] = 0;
+                choiceCount[choices] = count;
+                choices++;
+                cursor++;
+                index = 0;
+            }
+            int family = firstFamily[node];
+            for (int i = 0; i < index; i++) family = nextFamily[family];
+            return family;
+        }
+
+        /**
+         * Builds the tree of the current choices without recursion, since derivations can be as deep as the word is
+         * long.
+         *
+         * @return the tree, or null if the choices lead into a cycle
+         */
+        private ParseTree build() {
+            cursor = 0;
+            Arrays.fill(onPath, false);
+
+            List<Frame> stack = new ArrayList<>();
+            stack.add(new Frame(root));
+            onPath[root] = true;
+            ParseTree result = null;
+            while (!stack.isEmpty()) {
+                Frame frame = stack.get(stack.size() - 1);
+                if (frame.children == null) frame.expand();
+
+                if (frame.next < frame.children.size()) {
+                    int child = frame.children.get(frame.next++);
+                    if (onPath[child]) return null;
+                    onPath[child] = true;
+                    stack.add(new Frame(child));
+                    continue;
+                }
+
+                stack.remove(stack.size() - 1);
+                onPath[frame.node] = false;
+                Symbol symbol = grammar.symbol(nodeSymbol[frame.node]);
+                ParseTree tree = new ParseTree(symbol, nodeStart[frame.node], nodeEnd[frame.node], List.copyOf(frame.trees));
+                if (stack.isEmpty()) result = tree;
+                else stack.get(stack.size() - 1).trees.add(tree);
+            }
+            return result;
+        }
+
+        private final class Frame {
+            private final int node;
+            private List<Integer> children;
+            private final List<ParseTree> trees = new ArrayList<>();
+            private int next = 0;
+
+            private Frame(int node) {
+                this.node = node;
+            }
+
+            /**
+             * Chooses the family of the node and collects the symbol nodes of its rule along the intermediate nodes.
+             */
+            private void expand() {
+                children = new ArrayList<>();
+                if (grammar.isTerminal(nodeSymbol[node])) return;
+
+                int family = choose(node);
+                if (familyRight[family] >= 0) children.add(familyRight[family]);
+                int left = familyLeft[family];
+                while (left >= 0 && isIntermediate(left)) {
+                    int f = choose(left);
+                    children.add(familyRight[f]);
+                    left = familyLeft[f];
+                }
+                if (left >= 0) children.add(left);
+                Collections.reverse(children);
+            }
+        }
+    }
+}
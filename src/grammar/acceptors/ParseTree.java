@@ -0,0 +1,35 @@
+package grammar.acceptors;
+
+import symbols.Symbol;
+import symbols.TerminalSymbol;
+
+import java.util.List;
+
+/**
+ * One derivation of a span of the input, enumerated from a {@link ParseForest}.
+ *
+ * @param symbol   the symbol at the root of the tree
+ * @param start    the position of the first symbol of the span
+ * @param end      the position after the last symbol of the span
+ * @param children the subtrees of the symbols of the applied rule, empty for terminals and empty rules
+ * @author Matthias Harzer
+ */
+public record ParseTree(Symbol symbol, int start, int end, List<ParseTree> children) {
+    public boolean isLeaf() {
+        return children.isEmpty();
+    }
+
+    /**
+     * Prints the tree in bracket notation, e.g. <code>E(E(T(F(x)))+T(F(x)))</code>. Terminals are printed as they are,
+     * empty rules as <code>A(ε)</code>.
+     */
+    @Override
+    public String toString() {
+        if (symbol instanceof TerminalSymbol) return symbol.identifier;
+
+        StringBuilder sb = new StringBuilder(symbol.identifier).append('(');
+        if (children.isEmpty()) sb.append('ε');
+        for (ParseTree child : children) sb.append(child);
+        return sb.append(')').toString();
+    }
+}
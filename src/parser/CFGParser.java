@@ -1,35 +1,54 @@
 package parser;
 
 import grammar.ContextFreeGrammar;
+import grammar.Production;
 import symbols.Symbol;
 import symbols.TerminalSymbol;
 import symbols.VariableSymbol;
 import symbols.Word;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * A parser for {@link ContextFreeGrammar ContextFreeGrammars}. It is used to create a {@link ContextFreeGrammar} from a string representation.
+ * Note: <code>ε</code> or an empty result can be used for the empty word. Use {@link #setEpsilon(String)} to change it.
+ * <p>
+ * {@link #add(String)} reads every character of a result as one symbol. Large grammars with multi-character symbol
+ * names can be read with {@link #load(Reader)}, which parses the lines in parallel.
  *
  * @author Matthias Harzer
  */
 public class CFGParser {
-    private final List<VariableSymbol> variables;
-    private final List<TerminalSymbol> terminals;
+    // The number of lines that load parses in one task
+    private static final int CHUNK_LINES = 1024;
+
+    private final Map<String, VariableSymbol> variables;
+    private final Map<String, TerminalSymbol> terminals;
     private final ContextFreeGrammar grammar;
     private String transitionSeparator = "->";
     private String resultSeparator = "|";
+    private String epsilon = "ε";
 
     public CFGParser(String startSymbol, String... variables) {
-        this.variables = new ArrayList<>();
+        this.variables = new HashMap<>();
 
         for (String variable : variables) {
-            this.variables.add(getVariable(variable));
+            getVariable(variable);
         }
 
-        this.terminals = new ArrayList<>();
+        this.terminals = new HashMap<>();
 
         VariableSymbol startSymbol1 = getVariable(startSymbol);
         this.grammar = new ContextFreeGrammar(startSymbol1);
@@ -51,31 +70,24 @@ public class CFGParser {
         this.resultSeparator = resultSeparator;
     }
 
+    /**
+     * Set the string that is used as the epsilon symbol (default ε).
+     * @param epsilon the string that is used as the epsilon symbol
+     */
+    public void setEpsilon(String epsilon) {
+        this.epsilon = epsilon;
+    }
+
     private VariableSymbol getVariable(String identifier) {
-        return variables.stream()
-                .filter(v -> v.identifier.equals(identifier))
-                .findFirst()
-                .orElseGet(() -> {
-                    VariableSymbol variable = new VariableSymbol(identifier);
-                    variables.add(variable);
-                    return variable;
-                });
+        return variables.computeIfAbsent(identifier, VariableSymbol::new);
     }
 
     private TerminalSymbol getTerminal(String identifier) {
-        return terminals.stream()
-                .filter(t -> t.identifier.equals(identifier))
-                .findFirst()
-                .orElseGet(() -> {
-                    TerminalSymbol terminal = new TerminalSymbol(identifier);
-                    terminals.add(terminal);
-                    return terminal;
-                });
+        return terminals.computeIfAbsent(identifier, TerminalSymbol::new);
     }
 
     private boolean isVariable(String identifier) {
-        return variables.stream()
-                .anyMatch(v -> v.identifier.equals(identifier));
+        return variables.containsKey(identifier);
     }
 
     /**
@@ -94,22 +106,146 @@ public class CFGParser {
         List<Word> words = new ArrayList<>();
 
         for (String result : results) {
-            String[] symbols = result.strip().split("");
-
-            Symbol[] word = Arrays.stream(symbols)
-                    .map(s -> {
-                        if (isVariable(s)) {
-                            return getVariable(s);
-                        } else {
-                            return getTerminal(s);
-                        }
-                    })
+            if (result.isBlank() || result.strip().equals(epsilon)) {
+                words.add(Word.empty());
+                continue;
+            }
+
+            Symbol[] word = result.strip().codePoints()
+                    .mapToObj(Character::toString)
+                    .map(this::getSymbol)
                     .toArray(Symbol[]::new);
 
             words.add(new Word(word));
         }
 
-        this.grammar.addProduction(new grammar.Production(start, words.toArray(Word[]::new)));
+        this.grammar.addProduction(new Production(start, words.toArray(Word[]::new)));
+    }
+
+    private Symbol getSymbol(String identifier) {
+        return isVariable(identifier) ? getVariable(identifier) : getTerminal(identifier);
+    }
+
+    /**
+     * Loads the productions of a file, see {@link #load(Reader)}. The file is read as UTF-8.
+     *
+     * @param path the file to load
+     * @throws IOException if the file can not be read
+     */
+    public void load(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path)) {
+            load(reader);
+        }
+    }
+
+    /**
+     * Loads one production per line, e.g. <code>Expr -> Expr + Term | Term</code>. Unlike {@link #add(String)}, the
+     * symbols of a result are separated by whitespace, so their names can have more than one character. Every left
+     * side of the input and every variable of the constructor is a variable, all other symbols are terminals. Blank
+     * lines are skipped.
+     * <p>
+     * The lines are read in chunks, and every chunk is split into symbol names in parallel while the next one is
+     * read. The symbols are then created and the results are merged in the order of the lines, so the grammar does
+     * not depend on the scheduling: lines with the same left side become one production, which replaces an earlier
+     * production of that variable like {@link #add(String)}. If a line is invalid, nothing is declared or added. The
+     * reader is not closed.
+     *
+     * @param reader the productions to load
+     * @throws IOException              if the reader fails
+     * @throws IllegalArgumentException if a line is not a valid production, naming the first such line
+     */
+    public void load(Reader reader) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        List<CompletableFuture<List<Line>>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>(CHUNK_LINES);
+        int number = 0;
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            chunk.add(line);
+            if (chunk.size() == CHUNK_LINES) {
+                chunks.add(parseAsync(chunk, number));
+                number += CHUNK_LINES;
+                chunk = new ArrayList<>(CHUNK_LINES);
+            }
+        }
+        chunks.add(parseAsync(chunk, number));
+
+        List<List<Line>> parsed = new ArrayList<>(chunks.size());
+        try {
+            for (CompletableFuture<List<Line>> task : chunks) parsed.add(task.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+
+        // Check every line before anything is declared, so a failed load leaves the parser unchanged
+        for (List<Line> lineChunk : parsed) {
+            for (Line line : lineChunk) {
+                if (line.error() != null) {
+                    throw new IllegalArgumentException("Line " + (line.number() + 1) + ": " + line.error());
+                }
+            }
+        }
+
+        // Declare all left sides first, so a symbol is a variable no matter which line defines it
+        for (List<Line> lineChunk : parsed) {
+            for (Line line : lineChunk) getVariable(line.variable());
+        }
+
+        Map<VariableSymbol, List<Word>> results = new LinkedHashMap<>();
+        for (List<Line> lineChunk : parsed) {
+            for (Line line : lineChunk) {
+                List<Word> words = results.computeIfAbsent(getVariable(line.variable()), v -> new ArrayList<>());
+                for (String[] result : line.results()) {
+                    Symbol[] word = new Symbol[result.length];
+                    for (int i = 0; i < result.length; i++) word[i] = getSymbol(result[i]);
+                    words.add(new Word(word));
+                }
+            }
+        }
+
+        for (Map.Entry<VariableSymbol, List<Word>> entry : results.entrySet()) {
+            grammar.addProduction(new Production(entry.getKey(), entry.getValue().toArray(Word[]::new)));
+        }
+    }
+
+    /**
+     * A line split into the name of its variable and the symbol names of its results, or an error.
+     */
+    private record Line(int number, String variable, List<String[]> results, String error) {
+    }
+
+    private CompletableFuture<List<Line>> parseAsync(List<String> chunk, int firstNumber) {
+        return CompletableFuture.supplyAsync(() -> parseLines(chunk, firstNumber));
+    }
+
+    private List<Line> parseLines(List<String> chunk, int firstNumber) {
+        List<Line> lines = new ArrayList<>();
+        for (int j = 0; j < chunk.size(); j++) {
+            String line = chunk.get(j);
+            int i = firstNumber + j;
+            if (line.isBlank()) continue;
+
+            String[] parts = ParserUtil.split(line, transitionSeparator);
+            if (parts.length != 2 || parts[0].isBlank()) {
+                lines.add(new Line(i, null, null, "Production must have exactly one transition separator (" + transitionSeparator + ") and a variable"));
+                continue;
+            }
+            String variable = parts[0].strip();
+            if (variable.codePoints().anyMatch(Character::isWhitespace)) {
+                lines.add(new Line(i, null, null, "The left side '" + variable + "' must be a single variable without whitespace"));
+                continue;
+            }
+
+            List<String[]> results = new ArrayList<>();
+            for (String result : ParserUtil.split(parts[1], resultSeparator)) {
+                results.add(result.isBlank() ? new String[0] : Arrays.stream(result.strip().split("\\s+"))
+                        .filter(s -> !s.equals(epsilon))
+                        .toArray(String[]::new));
+            }
+            lines.add(new Line(i, variable, results, null));
+        }
+        return lines;
     }
 
     public ContextFreeGrammar getGrammar() {
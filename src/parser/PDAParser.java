@@ -2,43 +2,68 @@ package parser;
 
 import pushdown_automaton.PDA;
 import pushdown_automaton.State;
+import pushdown_automaton.TransitionTable;
 import pushdown_automaton.functions.From;
+import pushdown_automaton.functions.Function;
 import pushdown_automaton.functions.To;
 import symbols.StackSymbol;
 import symbols.TerminalSymbol;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 /**
  * A parser for {@link PDA Pushdown Automata}. It is able to parse a string representation of a PDA and create a {@link PDA} object from it.
  * Note: <code>ε</code> can be used as the epsilon symbol throughout the parser. Use {@link #setEpsilon(String)} to change it.
+ * <p>
+ * Stack symbols can have more than one character. The pushed symbols of a result are separated by whitespace, and every
+ * part is split into the longest declared stack symbols, so <code>AB</code> is read as <code>A B</code> unless
+ * <code>AB</code> is declared itself. Large automata can be read with {@link #load(Reader)}, which compiles the lines
+ * into a {@link TransitionTable} while reading.
  *
  * @author Matthias Harzer
  */
 public class PDAParser {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
     private String epsilon = "ε";
     private String separator = ",";
     private String transitionSeparator = "->";
     private String resultSeparator = "|";
     private final String stackStartSymbol;
-    private final List<StackSymbol> stackSymbols;
-    private final List<State> states;
-    private final List<TerminalSymbol> terminals;
+    private final Map<String, StackSymbol> stackSymbols;
+    // The length of the longest stack symbol name, including the start symbol
+    private final int maxStackSymbolLength;
+    private final Map<String, State> states;
+    private final Map<String, TerminalSymbol> terminals;
+    private final State startState;
     private final PDA pda;
 
 
     public PDAParser(String startState, String stackStartSymbol, String... stackSymbols) {
         this.stackStartSymbol = stackStartSymbol;
-        this.stackSymbols = Stream.of(stackSymbols)
-                .map(StackSymbol::new)
-                .toList();
-
+        this.stackSymbols = new LinkedHashMap<>();
+        int maxLength = stackStartSymbol.length();
+        for (String stackSymbol : stackSymbols) {
+            this.stackSymbols.putIfAbsent(stackSymbol, new StackSymbol(stackSymbol));
+            maxLength = Math.max(maxLength, stackSymbol.length());
+        }
+        this.maxStackSymbolLength = maxLength;
 
-        this.states = new ArrayList<>();
-        this.terminals = new ArrayList<>();
-        this.pda = new PDA(getState(startState));
+        this.states = new HashMap<>();
+        this.terminals = new HashMap<>();
+        this.startState = getState(startState);
+        this.pda = new PDA(this.startState);
     }
 
     /**
@@ -102,28 +127,45 @@ public class PDAParser {
         if (strippedIdentifier.equals(stackStartSymbol)) {
             return StackSymbol.START_SYMBOL;
         }
-        StackSymbol symbol = stackSymbols.stream()
-                .filter(s -> s.identifier.equals(strippedIdentifier))
-                .findFirst()
-                .orElse(null);
+        StackSymbol symbol = stackSymbols.get(strippedIdentifier);
 
         if (symbol == null) {
-            throw new IllegalArgumentException("Stack symbol '%s' is not defined in %s".formatted(strippedIdentifier, stackSymbols));
+            throw new IllegalArgumentException("Stack symbol '%s' is not defined in %s".formatted(strippedIdentifier, stackSymbols.values()));
         }
 
         return symbol;
     }
 
+    /**
+     * Splits the pushed symbols of a result into stack symbols: at whitespace, and every part into the longest declared
+     * names from left to right. The epsilon symbol is skipped.
+     */
+    private List<StackSymbol> getStackSymbols(String identifiers) {
+        List<StackSymbol> symbols = new ArrayList<>();
+        for (String part : WHITESPACE.split(identifiers.strip())) {
+            int i = 0;
+            while (i < part.length()) {
+                int length = Math.min(Math.max(maxStackSymbolLength, epsilon.length()), part.length() - i);
+                StackSymbol symbol = findStackSymbol(part.substring(i, i + length));
+                while (symbol == null && --length > 0) symbol = findStackSymbol(part.substring(i, i + length));
+                if (symbol == null) {
+                    throw new IllegalArgumentException("Stack symbol '%s' is not defined in %s".formatted(part.substring(i), stackSymbols.values()));
+                }
+                if (!symbol.isEpsilon()) symbols.add(symbol);
+                i += length;
+            }
+        }
+        return symbols;
+    }
+
+    private StackSymbol findStackSymbol(String identifier) {
+        if (identifier.equals(epsilon)) return StackSymbol.EPSILON;
+        if (identifier.equals(stackStartSymbol)) return StackSymbol.START_SYMBOL;
+        return stackSymbols.get(identifier);
+    }
+
     private State getState(String identifier) {
-        String strippedIdentifier = identifier.strip();
-        return states.stream()
-                .filter(s -> s.identifier().equals(strippedIdentifier))
-                .findFirst()
-                .orElseGet(() -> {
-                    State state = new State(strippedIdentifier);
-                    states.add(state);
-                    return state;
-                });
+        return states.computeIfAbsent(identifier.strip(), State::new);
     }
 
     private TerminalSymbol getTerminal(String identifier) {
@@ -131,19 +173,7 @@ public class PDAParser {
         if (strippedIdentifier.equals(epsilon)) {
             return TerminalSymbol.EPSILON;
         }
-        return terminals.stream()
-                .filter(t -> t.identifier.equals(strippedIdentifier))
-                .findFirst()
-                .orElseGet(() -> {
-                    TerminalSymbol terminal = new TerminalSymbol(strippedIdentifier);
-                    terminals.add(terminal);
-                    return terminal;
-                });
-    }
-
-    private boolean isStackSymbol(String identifier) {
-        return stackSymbols.stream()
-                .anyMatch(s -> s.identifier.equals(identifier));
+        return terminals.computeIfAbsent(strippedIdentifier, TerminalSymbol::new);
     }
 
     private From parseFrom(String from) {
@@ -174,12 +204,7 @@ public class PDAParser {
             throw new IllegalArgumentException("Result '%s' is invalid. Expected format: 'q%s AB'".formatted(to, separator));
 
         State toState = getState(parts[0]);
-        List<StackSymbol> stackSymbols = new ArrayList<>();
-        String stackSymbolsString = parts[1].strip();
-
-        for (int i = 0; i < stackSymbolsString.length(); i++) {
-            stackSymbols.add(getStackSymbol(stackSymbolsString.charAt(i) + ""));
-        }
+        List<StackSymbol> stackSymbols = getStackSymbols(parts[1]);
 
         return new To(toState, stackSymbols.toArray(StackSymbol[]::new));
     }
@@ -206,6 +231,76 @@ public class PDAParser {
         pda.addFn(from, to);
     }
 
+    /**
+     * Loads the functions of a file, see {@link #load(Reader)}. The file is read as UTF-8.
+     *
+     * @param path the file to load
+     * @throws IOException if the file can not be read
+     */
+    public void load(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path)) {
+            load(reader);
+        }
+    }
+
+    /**
+     * Loads one function per line in the format of {@link #add(String)}. Blank lines are skipped.
+     * <p>
+     * The lines are streamed straight into a {@link TransitionTable.Builder}, so no {@link Function} is created for
+     * them. The functions added before are kept, and the compiled table replaces the functions of the PDA of
+     * {@link #getPDA()}. It stays the same object, so earlier references see the loaded functions and settings like
+     * the {@link PDA#setStackHeightLimit(int) stack height limit} are kept. If a line is invalid, the PDA is unchanged.
+     * The reader is not closed.
+     *
+     * @param reader the functions to load
+     * @throws IOException              if the reader fails
+     * @throws IllegalArgumentException if a line is not a valid function, naming the line
+     */
+    public void load(Reader reader) throws IOException {
+        TransitionTable.Builder builder = new TransitionTable.Builder();
+        builder.state(startState);
+        for (Function fn : pda.getFunctions()) builder.add(fn);
+
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        int number = 0;
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            number++;
+            if (line.isBlank()) continue;
+            try {
+                load(builder, line);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + number + ": " + e.getMessage(), e);
+            }
+        }
+
+        pda.setTransitionTable(builder.build());
+    }
+
+    private void load(TransitionTable.Builder builder, String function) {
+        String[] parts = ParserUtil.split(function, transitionSeparator);
+
+        if (parts.length != 2)
+            throw new IllegalArgumentException("Function '%s' must have exactly one transition operator: %s".formatted(function, transitionSeparator));
+
+        String[] from = ParserUtil.split(parts[0], separator);
+        if (from.length != 2 && from.length != 3)
+            throw new IllegalArgumentException("From '%s' is invalid. Expected format: 'q%s a%s A' or 'q%s A'".formatted(parts[0], separator, separator, separator));
+
+        int fromState = builder.state(getState(from[0]));
+        TerminalSymbol terminalSymbol = from.length == 3 ? getTerminal(from[1]) : TerminalSymbol.EPSILON;
+        int terminal = terminalSymbol.isEpsilon() ? TransitionTable.EPSILON : terminalSymbol.id;
+        int stackSymbol = getStackSymbol(from[from.length - 1]).id;
+
+        for (String to : ParserUtil.split(parts[1], resultSeparator)) {
+            String[] result = ParserUtil.split(to.strip(), separator);
+            if (result.length != 2)
+                throw new IllegalArgumentException("Result '%s' is invalid. Expected format: 'q%s AB'".formatted(to.strip(), separator));
+
+            int[] push = getStackSymbols(result[1]).stream().mapToInt(s -> s.id).toArray();
+            builder.add(fromState, terminal, stackSymbol, builder.state(getState(result[0])), push);
+        }
+    }
+
     public PDA getPDA() {
         return pda;
     }
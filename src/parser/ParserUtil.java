@@ -1,5 +1,8 @@
 package parser;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * A utility class for parsers.
  *
@@ -13,6 +16,20 @@ public final class ParserUtil {
      * @return the split string
      */
     public static String[] split(String string, String separator) {
-        return string.split("\\Q" + separator + "\\E");
+        if (separator.isEmpty()) return string.split("");
+
+        // Same result as String.split with a quoted pattern, without compiling a pattern for every call
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        for (int i = string.indexOf(separator); i >= 0; i = string.indexOf(separator, start)) {
+            parts.add(string.substring(start, i));
+            start = i + separator.length();
+        }
+        if (parts.isEmpty()) return new String[]{string};
+        parts.add(string.substring(start));
+
+        int size = parts.size();
+        while (size > 0 && parts.get(size - 1).isEmpty()) size--;
+        return parts.subList(0, size).toArray(String[]::new);
     }
 }
@@ -0,0 +1,54 @@
+package pushdown_automaton;
+
+import java.time.Duration;
+
+/**
+ * The resources a single call of {@link PDA#accepts(symbols.Word, AcceptOptions)} or
+ * {@link MinimalPDA#accepts(String, AcceptOptions)} may use. A call that runs out of one of them stops with
+ * {@link AcceptResult.Outcome#BUDGET_EXCEEDED} instead of running on, so adversarial input can not stall a thread or
+ * exhaust the heap.
+ * <p>
+ * Negative limits and a null timeout mean no limit. Options are immutable, the <code>with</code> methods return
+ * modified copies:
+ * <pre>{@code
+ * AcceptOptions options = AcceptOptions.UNLIMITED
+ *         .withMaxConfigurations(1_000_000)
+ *         .withTimeout(Duration.ofMillis(50));
+ * }</pre>
+ *
+ * @param maxConfigurations the maximal number of configurations that are explored
+ * @param maxFrontier       the maximal number of configurations that are explored in one step of the search
+ * @param maxStackDepth     the maximal stack height of an explored configuration. Deeper configurations are dropped,
+ *                          and if no other configuration is accepted, the budget is exceeded. Unlike the
+ *                          {@link PDA#setStackHeightLimit(int) stack height limit}, this never decides a word.
+ * @param timeout           the wall-clock time a call may take, its deadline is the start of the call plus the timeout
+ * @author Matthias Harzer
+ */
+public record AcceptOptions(long maxConfigurations, int maxFrontier, int maxStackDepth, Duration timeout) {
+    /**
+     * No limits, like {@link PDA#accepts(symbols.Word)}.
+     */
+    public static final AcceptOptions UNLIMITED = new AcceptOptions(-1, -1, -1, null);
+
+    public AcceptOptions {
+        if (timeout != null && timeout.isNegative()) {
+            throw new IllegalArgumentException("The timeout must not be negative: " + timeout);
+        }
+    }
+
+    public AcceptOptions withMaxConfigurations(long maxConfigurations) {
+        return new AcceptOptions(maxConfigurations, maxFrontier, maxStackDepth, timeout);
+    }
+
+    public AcceptOptions withMaxFrontier(int maxFrontier) {
+        return new AcceptOptions(maxConfigurations, maxFrontier, maxStackDepth, timeout);
+    }
+
+    public AcceptOptions withMaxStackDepth(int maxStackDepth) {
+        return new AcceptOptions(maxConfigurations, maxFrontier, maxStackDepth, timeout);
+    }
+
+    public AcceptOptions withTimeout(Duration timeout) {
+        return new AcceptOptions(maxConfigurations, maxFrontier, maxStackDepth, timeout);
+    }
+}
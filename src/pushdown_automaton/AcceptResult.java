@@ -0,0 +1,58 @@
+package pushdown_automaton;
+
+/**
+ * The result of an acceptance call with {@link AcceptOptions}: the word is accepted, rejected, or the call ran out of
+ * one of its budgets before it could decide. In the last case, the limit that was hit is reported.
+ *
+ * @param outcome the outcome of the call
+ * @param limit   the limit that was hit if the budget was exceeded, otherwise null
+ * @author Matthias Harzer
+ */
+public record AcceptResult(Outcome outcome, Limit limit) {
+    public static final AcceptResult ACCEPT = new AcceptResult(Outcome.ACCEPT, null);
+    public static final AcceptResult REJECT = new AcceptResult(Outcome.REJECT, null);
+
+    public enum Outcome {
+        ACCEPT, REJECT, BUDGET_EXCEEDED
+    }
+
+    /**
+     * The limits of the {@link AcceptOptions}.
+     */
+    public enum Limit {
+        CONFIGURATIONS, FRONTIER, STACK_DEPTH, DEADLINE
+    }
+
+    public AcceptResult {
+        if ((outcome == Outcome.BUDGET_EXCEEDED) != (limit != null)) {
+            throw new IllegalArgumentException("A limit must be given if and only if the budget was exceeded");
+        }
+    }
+
+    public static AcceptResult exceeded(Limit limit) {
+        return new AcceptResult(Outcome.BUDGET_EXCEEDED, limit);
+    }
+
+    public static AcceptResult of(boolean accepted) {
+        return accepted ? ACCEPT : REJECT;
+    }
+
+    /**
+     * @return true if the word is accepted, false if it is rejected or the budget was exceeded
+     */
+    public boolean isAccepted() {
+        return outcome == Outcome.ACCEPT;
+    }
+
+    /**
+     * @return true if the call could not decide within its budget
+     */
+    public boolean isBudgetExceeded() {
+        return outcome == Outcome.BUDGET_EXCEEDED;
+    }
+
+    @Override
+    public String toString() {
+        return limit == null ? outcome.toString() : outcome + " (" + limit + ")";
+    }
+}
@@ -0,0 +1,94 @@
+package pushdown_automaton;
+
+/**
+ * Tracks the resources of one acceptance call against its {@link AcceptOptions}. The clock is only read every few
+ * hundred configurations, so a step costs a counter and a comparison.
+ *
+ * @author Matthias Harzer
+ */
+final class Budget {
+    private static final int CLOCK_INTERVAL = 256;
+
+    private final long maxConfigurations;
+    private final int maxFrontier;
+    private final int maxStackDepth;
+    private final boolean timed;
+    private final long deadline;
+    private long configurations = 0;
+    // The next count at which explore has to look closer, for the maximal number of configurations or the clock
+    private long checkpoint;
+    private boolean droppedDeep = false;
+    private AcceptResult.Limit exceeded;
+
+    Budget(AcceptOptions options) {
+        this.maxConfigurations = options.maxConfigurations() < 0 ? Long.MAX_VALUE : options.maxConfigurations();
+        this.maxFrontier = options.maxFrontier() < 0 ? Integer.MAX_VALUE : options.maxFrontier();
+        this.maxStackDepth = options.maxStackDepth() < 0 ? Integer.MAX_VALUE : options.maxStackDepth();
+        this.timed = options.timeout() != null;
+        this.deadline = timed ? System.nanoTime() + options.timeout().toNanos() : 0;
+        this.checkpoint = nextCheckpoint();
+    }
+
+    private long nextCheckpoint() {
+        long limit = maxConfigurations == Long.MAX_VALUE ? Long.MAX_VALUE : maxConfigurations + 1;
+        return timed ? Math.min(limit, configurations + CLOCK_INTERVAL) : limit;
+    }
+
+    /**
+     * Counts explored configurations.
+     *
+     * @return false if the maximal number of configurations or the deadline was exceeded
+     */
+    boolean explore(int count) {
+        configurations += count;
+        return configurations < checkpoint || checkpoint();
+    }
+
+    private boolean checkpoint() {
+        if (configurations > maxConfigurations) return exceed(AcceptResult.Limit.CONFIGURATIONS);
+        if (timed && System.nanoTime() - deadline > 0) return exceed(AcceptResult.Limit.DEADLINE);
+        checkpoint = nextCheckpoint();
+        return true;
+    }
+
+    /**
+     * Checks the size of the configurations of one step of a search.
+     *
+     * @return false if the frontier is too large
+     */
+    boolean frontier(int size) {
+        return size <= maxFrontier || exceed(AcceptResult.Limit.FRONTIER);
+    }
+
+    /**
+     * Checks the stack height of a configuration. Configurations that are too deep are dropped, but remembered, since
+     * the word can not be rejected anymore.
+     *
+     * @return false if the configuration is too deep
+     */
+    boolean fits(int height) {
+        if (height <= maxStackDepth) return true;
+        droppedDeep = true;
+        return false;
+    }
+
+    private boolean exceed(AcceptResult.Limit limit) {
+        exceeded = limit;
+        return false;
+    }
+
+    /**
+     * @return the result of a call that stopped because {@link #explore(int)}, {@link #frontier(int)} or
+     * {@link #fits(int)} returned false
+     */
+    AcceptResult exceeded() {
+        return AcceptResult.exceeded(exceeded != null ? exceeded : AcceptResult.Limit.STACK_DEPTH);
+    }
+
+    /**
+     * @return the result of a call that explored all configurations without accepting
+     */
+    AcceptResult rejected() {
+        return droppedDeep ? AcceptResult.exceeded(AcceptResult.Limit.STACK_DEPTH) : AcceptResult.REJECT;
+    }
+}
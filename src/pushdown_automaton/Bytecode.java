@@ -0,0 +1,309 @@
+package pushdown_automaton;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough of a class file writer for {@link CompiledPDA}: a final class with a default constructor and int-only
+ * methods made of loads, stores, arithmetic, branches, switches and static calls.
+ * <p>
+ * Classes are written with major version 49, the last one without stack map frames, so branches do not need any type
+ * information. Labels are patched when the code is finished. A method whose code or branch offsets do not fit into a
+ * class file throws an {@link IllegalStateException}, and the caller falls back to the interpreter.
+ *
+ * @author Matthias Harzer
+ */
+final class Bytecode {
+    static final int ICONST_0 = 0x03, ILOAD = 0x15, ALOAD = 0x19, IALOAD = 0x2e, ISTORE = 0x36, ASTORE = 0x3a,
+            IASTORE = 0x4f, POP = 0x57, DUP = 0x59, IADD = 0x60, ISUB = 0x64, IINC = 0x84,
+            IFLE = 0x9e, IF_ICMPEQ = 0x9f, IF_ICMPNE = 0xa0, IF_ICMPGE = 0xa2, IF_ICMPLE = 0xa4, GOTO = 0xa7,
+            IRETURN = 0xac, RETURN = 0xb1, ARRAYLENGTH = 0xbe, NEWARRAY = 0xbc, T_INT = 10;
+    private static final int TABLESWITCH = 0xaa, LOOKUPSWITCH = 0xab, INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8,
+            LDC = 0x12, LDC_W = 0x13, BIPUSH = 0x10, SIPUSH = 0x11;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private final Map<String, Integer> entries = new HashMap<>();
+    private int poolSize = 1;
+    private final List<byte[]> methods = new ArrayList<>();
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+
+    /**
+     * @param name       the internal name of the class, e.g. <code>pushdown_automaton/Generated</code>
+     * @param interfaces the internal names of the interfaces the class implements
+     */
+    Bytecode(String name, String... interfaces) {
+        this.thisClass = classEntry(name);
+        this.superClass = classEntry("java/lang/Object");
+        this.interfaces = Arrays.stream(interfaces).mapToInt(this::classEntry).toArray();
+
+        Code init = new Code();
+        init.op(ALOAD, 0);
+        init.u1(INVOKESPECIAL);
+        init.u2(methodEntry("java/lang/Object", "<init>", "()V"));
+        init.u1(RETURN);
+        addMethod(0x0001, "<init>", "()V", init, 1, 1);
+    }
+
+    private int entry(String key, IOWriter writer) {
+        Integer index = entries.get(key);
+        if (index != null) return index;
+        try {
+            writer.write(poolOut);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        entries.put(key, poolSize);
+        return poolSize++;
+    }
+
+    private interface IOWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private int utf8(String value) {
+        return entry("U" + value, out -> {
+            out.writeByte(1);
+            out.writeUTF(value);
+        });
+    }
+
+    private int integer(int value) {
+        return entry("I" + value, out -> {
+            out.writeByte(3);
+            out.writeInt(value);
+        });
+    }
+
+    private int classEntry(String name) {
+        int nameIndex = utf8(name);
+        return entry("C" + name, out -> {
+            out.writeByte(7);
+            out.writeShort(nameIndex);
+        });
+    }
+
+    int methodEntry(String owner, String name, String descriptor) {
+        int ownerIndex = classEntry(owner);
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = entry("N" + name + descriptor, out -> {
+            out.writeByte(12);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+        return entry("M" + owner + "." + name + descriptor, out -> {
+            out.writeByte(10);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    /**
+     * Adds a method with the given code. The labels of the code must all be placed.
+     */
+    void addMethod(int access, String name, String descriptor, Code code, int maxStack, int maxLocals) {
+        byte[] bytes = code.finish();
+        ByteArrayOutputStream method = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(method)) {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(1);
+            out.writeShort(utf8("Code"));
+            out.writeInt(12 + bytes.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        methods.add(method.toByteArray());
+    }
+
+    byte[] toByteArray() {
+        if (poolSize > 0xFFFF) throw new IllegalStateException("Too many constants");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(49);
+            out.writeShort(poolSize);
+            out.write(pool.toByteArray());
+            out.writeShort(0x0010 | 0x0020); // final, super
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (int i : interfaces) out.writeShort(i);
+            out.writeShort(0); // fields
+            out.writeShort(methods.size());
+            for (byte[] method : methods) out.write(method);
+            out.writeShort(0); // attributes
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A position in the code that branches can jump to before it is placed.
+     */
+    static final class Label {
+        private int position = -1;
+    }
+
+    /**
+     * A branch offset to patch: the placeholder at <code>at</code> of the instruction at <code>start</code>, which is
+     * <code>width</code> bytes wide.
+     */
+    private record Fixup(int at, int start, Label label, int width) {
+    }
+
+    /**
+     * The code of one method. Branch offsets are written as placeholders and patched by {@link #finish()}.
+     */
+    final class Code {
+        private byte[] code = new byte[256];
+        private int length = 0;
+        private final List<Fixup> fixups = new ArrayList<>();
+
+        void u1(int value) {
+            if (length == code.length) code = Arrays.copyOf(code, length * 2);
+            code[length++] = (byte) value;
+        }
+
+        void u2(int value) {
+            u1(value >>> 8);
+            u1(value);
+        }
+
+        void u4(int value) {
+            u2(value >>> 16);
+            u2(value);
+        }
+
+        /**
+         * Emits an instruction with a local variable index.
+         */
+        void op(int opcode, int local) {
+            if (local > 0xFF) throw new IllegalStateException("Too many locals");
+            u1(opcode);
+            u1(local);
+        }
+
+        void op(int opcode) {
+            u1(opcode);
+        }
+
+        void iinc(int local, int delta) {
+            u1(IINC);
+            u1(local);
+            u1(delta);
+        }
+
+        /**
+         * Pushes an int constant with the shortest instruction.
+         */
+        void push(int value) {
+            if (value >= -1 && value <= 5) {
+                u1(ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                u1(BIPUSH);
+                u1(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                u1(SIPUSH);
+                u2(value);
+            } else {
+                int index = integer(value);
+                if (index <= 0xFF) {
+                    u1(LDC);
+                    u1(index);
+                } else {
+                    u1(LDC_W);
+                    u2(index);
+                }
+            }
+        }
+
+        void invokeStatic(String owner, String name, String descriptor) {
+            u1(INVOKESTATIC);
+            u2(methodEntry(owner, name, descriptor));
+        }
+
+        void jump(int opcode, Label label) {
+            int start = length;
+            u1(opcode);
+            fixups.add(new Fixup(length, start, label, 2));
+            u2(0);
+        }
+
+        void place(Label label) {
+            label.position = length;
+        }
+
+        /**
+         * Emits a <code>tableswitch</code> over the keys <code>0</code> to <code>targets.length - 1</code>.
+         */
+        void tableSwitch(Label fallback, Label[] targets) {
+            int start = length;
+            u1(TABLESWITCH);
+            while (length % 4 != 0) u1(0);
+            offset(start, fallback);
+            u4(0);
+            u4(targets.length - 1);
+            for (Label target : targets) offset(start, target);
+        }
+
+        /**
+         * Emits a <code>lookupswitch</code>. The keys must be sorted.
+         */
+        void lookupSwitch(Label fallback, int[] keys, Label[] targets) {
+            int start = length;
+            u1(LOOKUPSWITCH);
+            while (length % 4 != 0) u1(0);
+            offset(start, fallback);
+            u4(keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                u4(keys[i]);
+                offset(start, targets[i]);
+            }
+        }
+
+        private void offset(int start, Label label) {
+            fixups.add(new Fixup(length, start, label, 4));
+            u4(0);
+        }
+
+        private byte[] finish() {
+            if (length > 0xFFFF) throw new IllegalStateException("Method too large");
+            for (Fixup fixup : fixups) {
+                int at = fixup.at();
+                if (fixup.label().position < 0) throw new IllegalStateException("Label not placed");
+                int offset = fixup.label().position - fixup.start();
+                if (fixup.width() == 2) {
+                    if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) throw new IllegalStateException("Branch too far");
+                    code[at] = (byte) (offset >>> 8);
+                    code[at + 1] = (byte) offset;
+                } else {
+                    code[at] = (byte) (offset >>> 24);
+                    code[at + 1] = (byte) (offset >>> 16);
+                    code[at + 2] = (byte) (offset >>> 8);
+                    code[at + 3] = (byte) offset;
+                }
+            }
+            return Arrays.copyOf(code, length);
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package pushdown_automaton;
+
+import context_free_acceptor.ContextFreeAcceptor;
+import context_free_acceptor.Recognizer;
+import grammar.Alphabet;
+import symbols.StackSymbol;
+import symbols.Word;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+import static pushdown_automaton.Bytecode.*;
+
+/**
+ * A deterministic {@link PDA} compiled into the bytecode of a hidden class, created by {@link PDA#compile()}.
+ * <p>
+ * The transitions become nested switches: a <code>tableswitch</code> on the state, a <code>lookupswitch</code> on the
+ * top stack symbol and, for consuming transitions, another one on the next terminal. Every case applies its edge with
+ * constants for the pushed symbols and the target state, so a step is a few jumps and array stores that the JIT can
+ * compile like handwritten code. The run performs the same steps and checks as {@link PDA#accepts(Word)} does for
+ * deterministic automata.
+ * <p>
+ * A long run of spontaneous transitions may be a loop that only the search of the interpreter detects. In that case,
+ * the word is accepted by the interpreter instead.
+ *
+ * @author Matthias Harzer
+ */
+public final class CompiledPDA implements ContextFreeAcceptor {
+    private static final String NAME = "pushdown_automaton/CompiledPDA$Generated";
+    private static final int ACCEPT = 1, REJECT = 0, CONTINUE = 2, INTERPRET = -1;
+
+    // Locals of the generated run method
+    private static final int INPUT = 1, LENGTH = 2, POSITION = 3, STATE = 4, STACK = 5, HEIGHT = 6, SPONTANEOUS = 7,
+            TERMINAL = 8;
+
+    private final PDA interpreter;
+    private final Program program;
+
+    /**
+     * The interface of the generated class.
+     */
+    interface Program {
+        /**
+         * @param input the terminal ids of the word, -1 for symbols that are not terminals
+         * @return 1 if the word is accepted, 0 if not, and -1 if the interpreter has to decide
+         */
+        int run(int[] input);
+    }
+
+    /**
+     * @param interpreter the PDA to compile, which is used for the words the generated code can not decide
+     * @throws IllegalStateException       if the automaton does not fit into a method
+     * @throws ReflectiveOperationException if the generated class can not be defined
+     */
+    CompiledPDA(PDA interpreter, TransitionTable table, State initialState, Stack stack, int stackHeightLimit)
+            throws ReflectiveOperationException {
+        this.interpreter = interpreter;
+
+        int[] initialStack = new int[stack.size()];
+        int i = initialStack.length;
+        for (StackSymbol symbol : stack) initialStack[--i] = symbol.id;
+
+        Bytecode bytecode = new Bytecode(NAME, "pushdown_automaton/CompiledPDA$Program");
+        Bytecode.Code code = bytecode.new Code();
+        generate(code, table, table.stateId(initialState), initialStack, stackHeightLimit);
+        bytecode.addMethod(0x0001, "run", "([I)I", code, 8, TERMINAL + 1);
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytecode.toByteArray(), true);
+        try {
+            this.program = (Program) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Generates the run method, see {@link PDA#accepts(Word)} for the steps and the checks.
+     */
+    private static void generate(Bytecode.Code code, TransitionTable table, int initialState, int[] initialStack,
+                                 int stackHeightLimit) {
+        // Buckets by state, top stack symbol and terminal, which is EPSILON for spontaneous ones
+        List<TreeMap<Integer, TreeMap<Integer, Integer>>> buckets = new ArrayList<>();
+        for (int s = 0; s < table.stateCount(); s++) buckets.add(new TreeMap<>());
+        for (int b = 0; b < table.bucketCount(); b++) {
+            buckets.get(table.bucketState(b))
+                    .computeIfAbsent(table.bucketStackSymbol(b), top -> new TreeMap<>())
+                    .put(table.bucketTerminal(b), b);
+        }
+
+        Label loop = new Label();
+        Label reject = new Label();
+        Label check = new Label();
+
+        // length = input.length, position = 0, state = initialState, spontaneous = 0
+        code.op(ALOAD, INPUT);
+        code.op(ARRAYLENGTH);
+        code.op(ISTORE, LENGTH);
+        code.push(0);
+        code.op(ISTORE, POSITION);
+        code.push(initialState);
+        code.op(ISTORE, STATE);
+        code.push(0);
+        code.op(ISTORE, SPONTANEOUS);
+
+        // The stack ids from bottom to top
+        code.push(Math.max(16, initialStack.length));
+        code.u1(NEWARRAY);
+        code.u1(T_INT);
+        code.op(ASTORE, STACK);
+        for (int i = 0; i < initialStack.length; i++) {
+            code.op(ALOAD, STACK);
+            code.push(i);
+            code.push(initialStack[i]);
+            code.op(IASTORE);
+        }
+        code.push(initialStack.length);
+        code.op(ISTORE, HEIGHT);
+
+        // while (height > 0): terminal = position < length ? input[position] : -1
+        code.place(loop);
+        code.op(ILOAD, HEIGHT);
+        code.jump(IFLE, reject);
+        Label endOfInput = new Label();
+        Label dispatch = new Label();
+        code.op(ILOAD, POSITION);
+        code.op(ILOAD, LENGTH);
+        code.jump(IF_ICMPGE, endOfInput);
+        code.op(ALOAD, INPUT);
+        code.op(ILOAD, POSITION);
+        code.op(IALOAD);
+        code.op(ISTORE, TERMINAL);
+        code.jump(GOTO, dispatch);
+        code.place(endOfInput);
+        code.push(-1);
+        code.op(ISTORE, TERMINAL);
+
+        code.place(dispatch);
+        Label[] states = new Label[table.stateCount()];
+        for (int s = 0; s < states.length; s++) states[s] = buckets.get(s).isEmpty() ? reject : new Label();
+        if (states.length == 0) {
+            code.jump(GOTO, reject);
+        } else {
+            code.op(ILOAD, STATE);
+            code.tableSwitch(reject, states);
+        }
+
+        int spontaneousLimit = 1024 + table.stateCount() * 16;
+        for (int s = 0; s < states.length; s++) {
+            if (buckets.get(s).isEmpty()) continue;
+            code.place(states[s]);
+
+            // Switch on stack[height - 1]
+            TreeMap<Integer, TreeMap<Integer, Integer>> byTop = buckets.get(s);
+            int[] tops = byTop.keySet().stream().mapToInt(Integer::intValue).toArray();
+            Label[] topLabels = new Label[tops.length];
+            for (int t = 0; t < tops.length; t++) topLabels[t] = new Label();
+            code.op(ALOAD, STACK);
+            code.op(ILOAD, HEIGHT);
+            code.push(1);
+            code.op(ISUB);
+            code.op(IALOAD);
+            code.lookupSwitch(reject, tops, topLabels);
+
+            for (int t = 0; t < tops.length; t++) {
+                code.place(topLabels[t]);
+                TreeMap<Integer, Integer> byTerminal = byTop.get(tops[t]);
+                Integer spontaneous = byTerminal.get(TransitionTable.EPSILON);
+                if (spontaneous != null) {
+                    // if (++spontaneous > spontaneousLimit) return INTERPRET
+                    Label apply = new Label();
+                    code.iinc(SPONTANEOUS, 1);
+                    code.op(ILOAD, SPONTANEOUS);
+                    code.push(spontaneousLimit);
+                    code.jump(IF_ICMPLE, apply);
+                    code.push(INTERPRET);
+                    code.op(IRETURN);
+                    code.place(apply);
+                    apply(code, table, table.bucketStart(spontaneous), check);
+                    continue;
+                }
+
+                int[] terminals = byTerminal.keySet().stream().mapToInt(Integer::intValue).toArray();
+                Label[] terminalLabels = new Label[terminals.length];
+                for (int a = 0; a < terminals.length; a++) terminalLabels[a] = new Label();
+                code.op(ILOAD, TERMINAL);
+                code.lookupSwitch(reject, terminals, terminalLabels);
+                for (int a = 0; a < terminals.length; a++) {
+                    code.place(terminalLabels[a]);
+                    // position++, spontaneous = 0
+                    code.iinc(POSITION, 1);
+                    code.push(0);
+                    code.op(ISTORE, SPONTANEOUS);
+                    apply(code, table, table.bucketStart(byTerminal.get(terminals[a])), check);
+                }
+            }
+        }
+
+        // switch (check(position, length, height, stackHeightLimit, minStackConsumption))
+        code.place(check);
+        code.op(ILOAD, POSITION);
+        code.op(ILOAD, LENGTH);
+        code.op(ILOAD, HEIGHT);
+        code.push(stackHeightLimit);
+        code.push(table.minStackConsumption());
+        code.invokeStatic("pushdown_automaton/CompiledPDA", "check", "(IIIII)I");
+        code.op(DUP);
+        code.push(CONTINUE);
+        Label next = new Label();
+        code.jump(IF_ICMPEQ, next);
+        code.op(IRETURN);
+        code.place(next);
+        code.op(POP);
+        code.jump(GOTO, loop);
+
+        code.place(reject);
+        code.push(REJECT);
+        code.op(IRETURN);
+    }
+
+    /**
+     * Pops the top symbol, pushes the symbols of the edge and moves to its target state.
+     */
+    private static void apply(Bytecode.Code code, TransitionTable table, int edge, Label check) {
+        int[] push = table.push(edge);
+        code.iinc(HEIGHT, -1);
+        if (push.length > 1) {
+            // stack = grow(stack, height + push.length)
+            code.op(ALOAD, STACK);
+            code.op(ILOAD, HEIGHT);
+            code.push(push.length);
+            code.op(IADD);
+            code.invokeStatic("pushdown_automaton/CompiledPDA", "grow", "([II)[I");
+            code.op(ASTORE, STACK);
+        }
+        for (int j = push.length - 1; j >= 0; j--) {
+            // stack[height++] = push[j]
+            code.op(ALOAD, STACK);
+            code.op(ILOAD, HEIGHT);
+            code.push(push[j]);
+            code.op(IASTORE);
+            code.iinc(HEIGHT, 1);
+        }
+        code.push(table.target(edge));
+        code.op(ISTORE, STATE);
+        code.jump(GOTO, check);
+    }
+
+    /**
+     * Called by the generated code when an edge pushes more than one symbol.
+     */
+    static int[] grow(int[] stack, int needed) {
+        return needed > stack.length ? Arrays.copyOf(stack, Math.max(stack.length * 2, needed)) : stack;
+    }
+
+    /**
+     * Called by the generated code after every step, the same checks as in {@link PDA#accepts(Word)}.
+     *
+     * @return 1 to accept, 0 to reject and 2 to continue
+     */
+    static int check(int position, int length, int height, int stackHeightLimit, int minStackConsumption) {
+        boolean consumed = position == length;
+        if (consumed && height == 0) return ACCEPT;
+        if (consumed != (height == 0)) return REJECT;
+        if (stackHeightLimit >= 0 && height > stackHeightLimit) return REJECT;
+        if ((long) height * minStackConsumption > length - position) return REJECT;
+        return CONTINUE;
+    }
+
+    @Override
+    public boolean accepts(Word word) {
+        if (word == null) return false;
+
+        int[] input = new int[word.length()];
+        for (int i = 0; i < input.length; i++) input[i] = word.terminalIdAt(i);
+        int result = program.run(input);
+        return result == INTERPRET ? interpreter.accepts(word) : result == ACCEPT;
+    }
+
+    /**
+     * Accepts the word with the interpreter, since the generated code does not count its steps.
+     *
+     * @see PDA#accepts(Word, AcceptOptions)
+     */
+    public AcceptResult accepts(Word word, AcceptOptions options) {
+        return interpreter.accepts(word, options);
+    }
+
+    /**
+     * Maps the code points to terminal ids and runs the generated code without building a {@link Word}.
+     */
+    @Override
+    public boolean accepts(CharSequence input) {
+        Alphabet alphabet = getAlphabet();
+        int[] terminals = new int[input.length()];
+        int length = 0;
+        for (int i = 0; i < input.length(); ) {
+            int codePoint = Character.codePointAt(input, i);
+            i += Character.charCount(codePoint);
+            int terminal = alphabet.terminalId(codePoint);
+            if (terminal < 0) return false;
+            terminals[length++] = terminal;
+        }
+        int result = program.run(length == terminals.length ? terminals : Arrays.copyOf(terminals, length));
+        return result == INTERPRET ? interpreter.accepts(input) : result == ACCEPT;
+    }
+
+    @Override
+    public Alphabet getAlphabet() {
+        return interpreter.getAlphabet();
+    }
+
+    @Override
+    public Recognizer recognizer() {
+        return interpreter.recognizer();
+    }
+}
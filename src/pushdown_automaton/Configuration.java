@@ -4,19 +4,36 @@ import symbols.Word;
 
 /**
  * A configuration of a pushdown automaton. This is a snapshot of the automaton at a certain point in time.
+ * Since the {@link Stack} is immutable and the input is shared, configurations that branch off the same configuration
+ * share their stacks and input.
  * @param state The current state.
- * @param input The remaining input.
+ * @param input The whole input word.
+ * @param position The index of the next input symbol to read.
  * @param stack The current stack.
  *
  * @author Matthias Harzer
  */
-public record Configuration(State state, Word input, Stack stack) {
+public record Configuration(State state, Word input, int position, Stack stack) {
+    /**
+     * @return true if all input symbols have been read
+     */
+    public boolean inputConsumed() {
+        return position == input.length();
+    }
+
+    /**
+     * @return the number of input symbols that have not been read yet
+     */
+    public int remaining() {
+        return input.length() - position;
+    }
+
     /**
      * The configuration is in an accepting state if the input is empty and the stack is empty.
      * @return true if the configuration is in an accepting state
      */
     public boolean accepted() {
-        return input.isEmpty() && stack.isEmpty();
+        return inputConsumed() && stack.isEmpty();
     }
 
     /**
@@ -26,6 +43,6 @@ public record Configuration(State state, Word input, Stack stack) {
      */
     public boolean valid() {
         // If the input is empty, the stack must be empty too.
-        return input.isEmpty() == stack.isEmpty();
+        return inputConsumed() == stack.isEmpty();
     }
 }
@@ -0,0 +1,287 @@
+package pushdown_automaton;
+
+import context_free_acceptor.Recognizer;
+import symbols.StackSymbol;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The incremental {@link Recognizer} of a {@link PDA}: the frontier of all configurations that are reachable after the
+ * input read so far.
+ * <p>
+ * Spontaneous transitions can push without bound, so the frontier may contain infinitely many stacks. It is stored as a
+ * finite automaton over stack symbols, like in the <i>post*</i> saturation of Bouajjani, Esparza and Maler: a
+ * configuration <code>(p, w)</code> is in the frontier if there is a path labeled <code>w</code> from the head node of
+ * state p to the bottom node. Every input symbol adds a new level of nodes: one head per state and one node between
+ * every two pushed symbols of a transition. Nodes of lower levels are never changed, so they are shared like the
+ * nodes of a graph-structured stack and a push only costs the work of one step.
+ * <p>
+ * The checks are the same as in {@link PDA#accepts(symbols.Word)}: the input is accepted if a consuming transition
+ * empties the stack with its last symbol, and configurations with an empty stack are dropped before the end of the
+ * input. With the {@link PopSummary}, every node knows the states in which the stack below it can still be accepted,
+ * which decides whether the input is a viable prefix.
+ *
+ * @author Matthias Harzer
+ */
+final class Frontier implements Recognizer {
+    private static final int BOTTOM = 0;
+
+    private final TransitionTable table;
+    private final PopSummary summary;
+
+    // The outgoing transitions of every node as linked lists
+    private int[] firstTransition = new int[64];
+    private int[] nodeLevel = new int[64];
+    // The state of a head node, or -1
+    private int[] headState = new int[64];
+    private BitSet[] viable = new BitSet[64];
+    private int nodes = 0;
+
+    private int[] transitionSymbol = new int[64];
+    private int[] transitionTarget = new int[64];
+    private int[] nextTransition = new int[64];
+    private int transitions = 0;
+
+    // The current level: its first node, the head node by state and the nodes between pushed symbols by (edge, index)
+    private int level = 0;
+    private int levelStart;
+    private final int[] heads;
+    private final Map<Long, Integer> between = new HashMap<>();
+    private final Set<Transition> added = new HashSet<>();
+    private final Set<Long> links = new HashSet<>();
+    // Current level node -> the heads that share its transitions
+    private final Map<Integer, List<Integer>> linkedFrom = new HashMap<>();
+    private final Deque<Transition> pending = new ArrayDeque<>();
+
+    private boolean accepted = false;
+    private boolean rejected = false;
+
+    private record Transition(int from, int symbol, int to) {
+    }
+
+    Frontier(TransitionTable table, State initialState, Stack stack) {
+        this.table = table;
+        this.summary = table.popSummary();
+        this.heads = new int[table.stateCount()];
+
+        node(-1); // BOTTOM
+        int state = table.stateId(initialState);
+        int[] symbols = new int[stack.size()];
+        int i = 0;
+        for (StackSymbol symbol : stack) symbols[i++] = symbol.id;
+        if (state == TransitionTable.NONE || symbols.length == 0) {
+            rejected = true;
+            return;
+        }
+
+        // The initial stack below its top symbol, a level of its own
+        level = -1;
+        levelStart = nodes;
+        int below = BOTTOM;
+        for (int j = symbols.length - 1; j > 0; j--) {
+            int node = node(-1);
+            addTransition(node, symbols[j], below);
+            below = node;
+        }
+        finishLevel();
+
+        startLevel();
+        addTransition(head(state), symbols[0], below);
+        if (symbols.length == 1) {
+            int bucket = table.find(state, TransitionTable.EPSILON, symbols[0]);
+            for (int edge = start(bucket); edge < end(bucket); edge++) {
+                if (table.push(edge).length == 0) accepted = true;
+            }
+        }
+        saturate();
+        rejected = !finishLevel();
+    }
+
+    @Override
+    public boolean push(int terminal) {
+        if (rejected) return false;
+        if (terminal < 0) return reject();
+
+        // The transitions of the heads of the current level, which is final now
+        List<Transition> tops = new ArrayList<>();
+        for (int node = levelStart; node < nodes; node++) {
+            if (headState[node] < 0) continue;
+            for (int t = firstTransition[node]; t >= 0; t = nextTransition[t]) {
+                tops.add(new Transition(node, transitionSymbol[t], transitionTarget[t]));
+            }
+        }
+
+        startLevel();
+        accepted = false;
+        for (Transition top : tops) {
+            int bucket = table.find(headState[top.from()], terminal, top.symbol());
+            for (int edge = start(bucket); edge < end(bucket); edge++) {
+                if (table.push(edge).length == 0 && top.to() == BOTTOM) accepted = true;
+                else apply(edge, top.to());
+            }
+        }
+        saturate();
+        return finishLevel() || reject();
+    }
+
+    private boolean reject() {
+        rejected = true;
+        return false;
+    }
+
+    @Override
+    public boolean isViablePrefix() {
+        return !rejected;
+    }
+
+    @Override
+    public boolean isAccepted() {
+        return !rejected && accepted;
+    }
+
+    private int start(int bucket) {
+        return bucket == TransitionTable.NONE ? 0 : table.bucketStart(bucket);
+    }
+
+    private int end(int bucket) {
+        return bucket == TransitionTable.NONE ? 0 : table.bucketEnd(bucket);
+    }
+
+    private void startLevel() {
+        level++;
+        levelStart = nodes;
+        Arrays.fill(heads, -1);
+        between.clear();
+        added.clear();
+        links.clear();
+        linkedFrom.clear();
+    }
+
+    /**
+     * Follows the spontaneous transitions of the current level until no new transition is added.
+     */
+    private void saturate() {
+        while (!pending.isEmpty()) {
+            Transition top = pending.poll();
+            int bucket = table.find(headState[top.from()], TransitionTable.EPSILON, top.symbol());
+            for (int edge = start(bucket); edge < end(bucket); edge++) apply(edge, top.to());
+        }
+    }
+
+    /**
+     * Applies the given edge to the stacks that continue at the given node below the popped symbol.
+     */
+    private void apply(int edge, int below) {
+        int head = head(table.target(edge));
+        int[] push = table.push(edge);
+        if (push.length == 0) {
+            link(head, below);
+            return;
+        }
+
+        int from = head;
+        for (int i = 0; i < push.length - 1; i++) {
+            long key = (long) edge << 32 | i;
+            Integer node = between.get(key);
+            if (node == null) {
+                node = node(-1);
+                between.put(key, node);
+            }
+            addTransition(from, push[i], node);
+            from = node;
+        }
+        addTransition(from, push[push.length - 1], below);
+    }
+
+    /**
+     * Gives the head all stacks of the given node. An empty stack is dropped before the end of the input.
+     */
+    private void link(int head, int node) {
+        if (node == BOTTOM || !links.add((long) head << 32 | node)) return;
+        if (nodeLevel[node] == level) linkedFrom.computeIfAbsent(node, n -> new ArrayList<>()).add(head);
+        for (int t = firstTransition[node]; t >= 0; t = nextTransition[t]) {
+            addTransition(head, transitionSymbol[t], transitionTarget[t]);
+        }
+    }
+
+    private void addTransition(int from, int symbol, int to) {
+        if (!added.add(new Transition(from, symbol, to))) return;
+
+        if (transitions == transitionSymbol.length) {
+            transitionSymbol = Arrays.copyOf(transitionSymbol, transitions * 2);
+            transitionTarget = Arrays.copyOf(transitionTarget, transitions * 2);
+            nextTransition = Arrays.copyOf(nextTransition, transitions * 2);
+        }
+        transitionSymbol[transitions] = symbol;
+        transitionTarget[transitions] = to;
+        nextTransition[transitions] = firstTransition[from];
+        firstTransition[from] = transitions++;
+
+        if (headState[from] >= 0) pending.add(new Transition(from, symbol, to));
+        List<Integer> linked = linkedFrom.get(from);
+        if (linked != null) {
+            for (int head : List.copyOf(linked)) addTransition(head, symbol, to);
+        }
+    }
+
+    private int head(int state) {
+        if (heads[state] < 0) heads[state] = node(state);
+        return heads[state];
+    }
+
+    private int node(int state) {
+        if (nodes == firstTransition.length) {
+            firstTransition = Arrays.copyOf(firstTransition, nodes * 2);
+            nodeLevel = Arrays.copyOf(nodeLevel, nodes * 2);
+            headState = Arrays.copyOf(headState, nodes * 2);
+            viable = Arrays.copyOf(viable, nodes * 2);
+        }
+        firstTransition[nodes] = -1;
+        nodeLevel[nodes] = level;
+        headState[nodes] = state;
+        viable[nodes] = new BitSet();
+        return nodes++;
+    }
+
+    /**
+     * Computes the states in which the stacks of every node of the current level can still be accepted. The nodes of
+     * a level can form cycles, so this is a fixpoint.
+     *
+     * @return true if the input is accepted or a viable prefix
+     */
+    private boolean finishLevel() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int node = levelStart; node < nodes; node++) {
+                BitSet states = viable[node];
+                for (int t = firstTransition[node]; t >= 0; t = nextTransition[t]) {
+                    int symbol = transitionSymbol[t];
+                    int below = transitionTarget[t];
+                    for (int p = 0; p < summary.stateCount(); p++) {
+                        if (states.get(p)) continue;
+                        if (below == BOTTOM ? summary.accepting(p, symbol) : summary.pop(p, symbol).intersects(viable[below])) {
+                            states.set(p);
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (accepted) return true;
+        for (int node = levelStart; node < nodes; node++) {
+            if (headState[node] >= 0 && viable[node].get(headState[node])) return true;
+        }
+        return false;
+    }
+}
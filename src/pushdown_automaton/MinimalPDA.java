@@ -3,13 +3,24 @@ package pushdown_automaton;
 import context_free_acceptor.ContextFreeAcceptor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A minimal implementation of a <a href="https://en.wikipedia.org/wiki/Pushdown_automaton">Push Down Automaton (Kellerautomat)</a>.
  * Uses only Java's built-in data structures.
  * <p>
- * Requires for stack or alphabet symbols to be single characters.
+ * Works on the chars of the input and the stack directly: the functions are compiled into a table indexed by
+ * <code>(state, first char of the symbol, first char of the stack symbol)</code>, symbols with more than one char
+ * compare their remaining chars on lookup. A configuration is a state, an offset into the input and a stack of chars
+ * that is shared with the configuration it was pushed from, so a step allocates nothing but the pushed chars. The
+ * configurations are explored breadth first, step by step, within the budget of the {@link AcceptOptions}.
+ * <p>
+ * The empty string as symbol is a spontaneous transition, as stack symbol it matches without popping. A word is
+ * accepted if a step reads its last char and leaves an empty stack. If trim is enabled, whitespace at the start and
+ * the end of the remaining input and stack is ignored before every step.
  *
  * @see PDA
  *
@@ -24,6 +35,9 @@ public class MinimalPDA implements ContextFreeAcceptor {
     private final String startState;
     private boolean trim = true;
 
+    // Compiled lazily, reset by addFn
+    private volatile Table table;
+
     public MinimalPDA(String startState, String startStackSymbol) {
         this.stack = startStackSymbol;
         this.functions = new ArrayList<>();
@@ -43,89 +57,296 @@ public class MinimalPDA implements ContextFreeAcceptor {
             String endStackSymbols
     ) {
         functions.add(new String[]{startState, symbol, stackSymbol, endState, endStackSymbols});
+        table = null;
     }
 
-    private List<String[]> advance(String[] configuration) {
-        String state = configuration[0];
-        String input = configuration[1];
-        String stack = configuration[2];
+    private Table getTable() {
+        Table table = this.table;
+        if (table == null) {
+            table = new Table(startState, functions);
+            this.table = table;
+        }
+        return table;
+    }
 
-        if(trim){
-            input = input.strip();
-            stack = stack.strip();
+    public boolean accepts(String input) {
+        return accepts(input, AcceptOptions.UNLIMITED).isAccepted();
+    }
+
+    /**
+     * Checks if the automaton accepts the input within the budget of the options. Every step of the search is counted
+     * against it, and the stack depth is measured in chars.
+     *
+     * @param input   the input to check
+     * @param options the resources the call may use
+     * @return whether the input is accepted, or which limit was hit before it could decide
+     */
+    public AcceptResult accepts(String input, AcceptOptions options) {
+        return new Run(getTable(), input.toCharArray(), new Budget(options)).accepts();
+    }
+
+    public boolean accepts(symbols.Word word) {
+        return accepts(word.toString());
+    }
+
+    @Override
+    public grammar.Alphabet getAlphabet() {
+        return new grammar.Alphabet(functions.stream()
+                .map(fn -> fn[1])
+                .toArray(String[]::new));
+    }
+
+    /**
+     * The functions indexed by <code>(state, symbol, stackSymbol)</code>. The symbol and the stack symbol are indexed by
+     * their first char, or 0 for the empty string, and the edges of every index are stored consecutively.
+     */
+    private static final class Table {
+        private final int initialState;
+        private final int symbols;
+        private final int stackSymbols;
+        // Column of a char, 0 if no symbol starts with it
+        private final int[] symbolColumn;
+        private final int[] stackColumn;
+        // The edges of bucket b are bucketStart[b] to bucketStart[b + 1] - 1
+        private final int[] bucketStart;
+        private final int[] edgeTarget;
+        // The chars after the first one of the symbol and the stack symbol, and the pushed chars, top first
+        private final char[][] edgeSymbolRest;
+        private final char[][] edgeStackRest;
+        private final char[][] edgePush;
+
+        private Table(String startState, List<String[]> functions) {
+            Map<String, Integer> states = new HashMap<>();
+            states.put(startState, 0);
+            for (String[] fn : functions) {
+                states.putIfAbsent(fn[0], states.size());
+                // Configurations in the state "" are dropped, so its functions are never used
+                if (!fn[3].isEmpty()) states.putIfAbsent(fn[3], states.size());
+            }
+            this.initialState = 0;
+
+            char maxSymbol = 0;
+            char maxStack = 0;
+            for (String[] fn : functions) {
+                if (!fn[1].isEmpty()) maxSymbol = (char) Math.max(maxSymbol, fn[1].charAt(0));
+                if (!fn[2].isEmpty()) maxStack = (char) Math.max(maxStack, fn[2].charAt(0));
+            }
+            this.symbolColumn = new int[maxSymbol + 1];
+            this.stackColumn = new int[maxStack + 1];
+            int symbols = 1;
+            int stackSymbols = 1;
+            for (String[] fn : functions) {
+                if (!fn[1].isEmpty() && symbolColumn[fn[1].charAt(0)] == 0) symbolColumn[fn[1].charAt(0)] = symbols++;
+                if (!fn[2].isEmpty() && stackColumn[fn[2].charAt(0)] == 0) stackColumn[fn[2].charAt(0)] = stackSymbols++;
+            }
+            this.symbols = symbols;
+            this.stackSymbols = stackSymbols;
+
+            List<String[]> used = functions.stream().filter(fn -> !fn[3].isEmpty()).toList();
+            int[] bucketOf = new int[used.size()];
+            this.bucketStart = new int[states.size() * symbols * stackSymbols + 1];
+            for (int i = 0; i < used.size(); i++) {
+                String[] fn = used.get(i);
+                bucketOf[i] = bucket(states.get(fn[0]), column(symbolColumn, fn[1]), column(stackColumn, fn[2]));
+                bucketStart[bucketOf[i] + 1]++;
+            }
+            for (int b = 0; b + 1 < bucketStart.length; b++) bucketStart[b + 1] += bucketStart[b];
+
+            this.edgeTarget = new int[used.size()];
+            this.edgeSymbolRest = new char[used.size()][];
+            this.edgeStackRest = new char[used.size()][];
+            this.edgePush = new char[used.size()][];
+            int[] next = Arrays.copyOf(bucketStart, bucketStart.length - 1);
+            for (int i = 0; i < used.size(); i++) {
+                String[] fn = used.get(i);
+                int edge = next[bucketOf[i]]++;
+                edgeTarget[edge] = states.get(fn[3]);
+                edgeSymbolRest[edge] = rest(fn[1]);
+                edgeStackRest[edge] = rest(fn[2]);
+                edgePush[edge] = fn[4].toCharArray();
+            }
         }
 
-        if (input.isEmpty() || stack.isEmpty()) {
-            return new ArrayList<>();
+        private static int column(int[] columns, String symbol) {
+            return symbol.isEmpty() ? 0 : columns[symbol.charAt(0)];
         }
 
-//        if()
+        private static char[] rest(String symbol) {
+            return symbol.isEmpty() ? new char[0] : symbol.substring(1).toCharArray();
+        }
 
+        private int bucket(int state, int symbol, int stackSymbol) {
+            return (state * symbols + symbol) * stackSymbols + stackSymbol;
+        }
 
+        private int symbolColumn(char c) {
+            return c < symbolColumn.length ? symbolColumn[c] : 0;
+        }
 
+        private int stackColumn(char c) {
+            return c < stackColumn.length ? stackColumn[c] : 0;
+        }
+    }
 
-        List<String[]> configurations = new ArrayList<>();
+    /**
+     * One run of the automaton on an input. The stacks of all configurations are linked lists of chars in shared
+     * arrays, so a configuration is just three ints.
+     */
+    private final class Run {
+        private static final int EMPTY = -1;
+        private static final int NO_MATCH = -2;
 
-        for (String[] fn : functions) {
-            String fnStartState = fn[0];
-            String fnStartSymbol = fn[1];
-            String fnStartStackSymbol = fn[2];
-            String fnEndState = fn[3];
-            String fnEndStackSymbols = fn[4];
+        private final Table table;
+        private final char[] input;
+        private final Budget budget;
+        // The input ends here, after trailing whitespace if trim is enabled
+        private final int end;
 
-            if (!fnStartState.equals(state) || !stack.startsWith(fnStartStackSymbol)) continue;
+        private char[] nodeChar = new char[64];
+        private int[] nodeNext = new int[64];
+        // The number of chars from the node to the bottom of the stack
+        private int[] nodeDepth = new int[64];
+        // Whether the node and all nodes below it are whitespace, which is ignored at the bottom if trim is enabled
+        private boolean[] nodeBlank = new boolean[64];
+        private int nodes = 0;
 
-            String newStack = stack.substring(fnStartStackSymbol.length());
+        private int[] states = new int[16];
+        private int[] offsets = new int[16];
+        private int[] stacks = new int[16];
+        private int size = 0;
+        private int[] nextStates = new int[16];
+        private int[] nextOffsets = new int[16];
+        private int[] nextStacks = new int[16];
+        private int nextSize = 0;
 
-            if (input.startsWith(fnStartSymbol)) { // normal transition
-                configurations.add(new String[]{fnEndState, input.substring(fnStartSymbol.length()), fnEndStackSymbols + newStack});
+        private Run(Table table, char[] input, Budget budget) {
+            this.table = table;
+            this.input = input;
+            this.budget = budget;
+            int end = input.length;
+            if (trim) {
+                while (end > 0 && Character.isWhitespace(input[end - 1])) end--;
             }
+            this.end = end;
         }
 
-        return configurations;
-    }
+        private AcceptResult accepts() {
+            states[0] = table.initialState;
+            offsets[0] = 0;
+            stacks[0] = push(stack.toCharArray(), EMPTY);
+            size = 1;
 
-    public boolean accepts(String input) {
-        String[] configuration = new String[]{this.startState, input, stack};
-        List<String[]> configurations = new ArrayList<>();
-        configurations.add(configuration);
-        long totalConfigurations = 1;
-
-        while (!configurations.isEmpty()) {
-            List<String[]> newConfigurations = new ArrayList<>();
+            while (size > 0) {
+                if (!budget.frontier(size)) return budget.exceeded();
+                nextSize = 0;
+                for (int c = 0; c < size; c++) {
+                    if (advance(states[c], offsets[c], stacks[c])) return AcceptResult.ACCEPT;
+                }
+                if (!budget.explore(nextSize)) return budget.exceeded();
 
-            for (String[] c : configurations) {
-                List<String[]> newC = advance(c);
-                newConfigurations.addAll(newC);
+                int[] swap = states;
+                states = nextStates;
+                nextStates = swap;
+                swap = offsets;
+                offsets = nextOffsets;
+                nextOffsets = swap;
+                swap = stacks;
+                stacks = nextStacks;
+                nextStacks = swap;
+                size = nextSize;
             }
+            return budget.rejected();
+        }
 
-            configurations = newConfigurations
-                    .stream().filter(c -> !c[0].isEmpty())
-                    .toList();
+        /**
+         * Adds the successors of the configuration to the next step.
+         *
+         * @return true if a successor is accepting
+         */
+        private boolean advance(int state, int offset, int stack) {
+            if (trim) {
+                while (offset < end && Character.isWhitespace(input[offset])) offset++;
+                while (stack != EMPTY && Character.isWhitespace(nodeChar[stack])) stack = nodeNext[stack];
+            }
+            if (offset >= end || isEmpty(stack)) return false;
 
-            totalConfigurations += configurations.size();
+            int symbol = table.symbolColumn(input[offset]);
+            int stackSymbol = table.stackColumn(nodeChar[stack]);
+            return advance(table.bucket(state, 0, 0), offset, 0, stack, 0)
+                    || symbol > 0 && advance(table.bucket(state, symbol, 0), offset, 1, stack, 0)
+                    || stackSymbol > 0 && advance(table.bucket(state, 0, stackSymbol), offset, 0, stack, 1)
+                    || symbol > 0 && stackSymbol > 0 && advance(table.bucket(state, symbol, stackSymbol), offset, 1, stack, 1);
+        }
 
-            for (String[] c : configurations) {
-                if (c[1].isEmpty() && c[2].isEmpty()) {
-                    System.out.println("Total configurations: " + totalConfigurations);
-                    return true;
+        /**
+         * Applies the edges of a bucket whose first chars matched.
+         *
+         * @param read   the number of matched chars of the symbol, 0 or 1
+         * @param popped the number of matched chars of the stack symbol, 0 or 1
+         * @return true if a successor is accepting
+         */
+        private boolean advance(int bucket, int offset, int read, int stack, int popped) {
+            int below = popped == 0 ? stack : nodeNext[stack];
+            for (int edge = table.bucketStart[bucket]; edge < table.bucketStart[bucket + 1]; edge++) {
+                char[] symbolRest = table.edgeSymbolRest[edge];
+                if (offset + read + symbolRest.length > end
+                        || !Arrays.equals(input, offset + read, offset + read + symbolRest.length, symbolRest, 0, symbolRest.length)) {
+                    continue;
                 }
+                int rest = pop(below, table.edgeStackRest[edge]);
+                if (rest == NO_MATCH) continue;
+
+                int nextOffset = offset + read + symbolRest.length;
+                char[] push = table.edgePush[edge];
+                if (nextOffset == end && push.length == 0 && isEmpty(rest)) return true;
+                add(table.edgeTarget[edge], nextOffset, push(push, rest));
             }
+            return false;
         }
 
+        /**
+         * @return the stack below the given chars, or NO_MATCH if the stack does not start with them
+         */
+        private int pop(int stack, char[] chars) {
+            for (char c : chars) {
+                if (stack == EMPTY || nodeChar[stack] != c || trim && nodeBlank[stack]) return NO_MATCH;
+                stack = nodeNext[stack];
+            }
+            return stack;
+        }
 
-        return false;
-    }
+        private boolean isEmpty(int stack) {
+            return stack == EMPTY || trim && nodeBlank[stack];
+        }
 
-    public boolean accepts(symbols.Word word) {
-        return accepts(word.toString());
-    }
+        private int push(char[] chars, int stack) {
+            for (int i = chars.length - 1; i >= 0; i--) {
+                if (nodes == nodeChar.length) {
+                    nodeChar = Arrays.copyOf(nodeChar, nodes * 2);
+                    nodeNext = Arrays.copyOf(nodeNext, nodes * 2);
+                    nodeDepth = Arrays.copyOf(nodeDepth, nodes * 2);
+                    nodeBlank = Arrays.copyOf(nodeBlank, nodes * 2);
+                }
+                nodeChar[nodes] = chars[i];
+                nodeNext[nodes] = stack;
+                nodeDepth[nodes] = stack == EMPTY ? 1 : nodeDepth[stack] + 1;
+                nodeBlank[nodes] = Character.isWhitespace(chars[i]) && (stack == EMPTY || nodeBlank[stack]);
+                stack = nodes++;
+            }
+            return stack;
+        }
 
-    @Override
-    public grammar.Alphabet getAlphabet() {
-        return new grammar.Alphabet(functions.stream()
-                .map(fn -> fn[1])
-                .toArray(String[]::new));
+        private void add(int state, int offset, int stack) {
+            if (!budget.fits(stack == EMPTY ? 0 : nodeDepth[stack])) return;
+            if (nextSize == nextStates.length) {
+                nextStates = Arrays.copyOf(nextStates, nextSize * 2);
+                nextOffsets = Arrays.copyOf(nextOffsets, nextSize * 2);
+                nextStacks = Arrays.copyOf(nextStacks, nextSize * 2);
+            }
+            nextStates[nextSize] = state;
+            nextOffsets[nextSize] = offset;
+            nextStacks[nextSize] = stack;
+            nextSize++;
+        }
     }
 }
-
@@ -1,6 +1,7 @@
 package pushdown_automaton;
 
 import context_free_acceptor.ContextFreeAcceptor;
+import context_free_acceptor.Recognizer;
 import grammar.Alphabet;
 import grammar.ContextFreeGrammar;
 import grammar.Production;
@@ -9,9 +10,19 @@ import pushdown_automaton.functions.Function;
 import pushdown_automaton.functions.To;
 import symbols.*;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * A <a href="https://en.wikipedia.org/wiki/Pushdown_automaton">Push Down Automaton (Kellerautomat)</a> is a <a href="https://en.wikipedia.org/wiki/Nondeterministic_finite_automaton">non-deterministic finite state machine</a> with a stack.
@@ -21,8 +32,13 @@ import java.util.List;
  */
 public class PDA implements ContextFreeAcceptor {
     private final Stack stack;
-    private final List<Function> functions;
+    // Null for a PDA that was loaded into a TransitionTable, until the functions are needed
+    private List<Function> functions;
     private final State initialState;
+    // Built lazily and reset by addFn, volatile so concurrent calls of accepts see a complete table
+    private volatile TransitionTable transitionTable;
+    private volatile Alphabet alphabet;
+    private int stackHeightLimit = -1;
 
     public PDA(State initialState) {
         this(new ArrayList<>(), initialState);
@@ -35,37 +51,167 @@ public class PDA implements ContextFreeAcceptor {
     }
 
     public PDA(List<Function> functions, State initialState) {
-        this(functions, initialState, new Stack());
-        this.stack.add(StackSymbol.START_SYMBOL);
+        this(functions, initialState, Stack.of(StackSymbol.START_SYMBOL));
+    }
+
+    /**
+     * Creates a PDA from a compiled table, e.g. one that was loaded with {@link parser.PDAParser#load(java.io.Reader)}.
+     * No {@link Function Functions} are created unless they are needed, e.g. by {@link #addFn(Function)} or
+     * {@link #toString()}; they are then rebuilt from the table.
+     *
+     * @param transitionTable the transitions of the PDA
+     * @param initialState    the initial state
+     * @param stack           the initial stack
+     */
+    public PDA(TransitionTable transitionTable, State initialState, Stack stack) {
+        this.stack = stack;
+        this.functions = null;
+        this.initialState = initialState;
+        this.transitionTable = transitionTable;
+    }
+
+    private List<Function> functions() {
+        if (functions == null) functions = new ArrayList<>(transitionTable.toFunctions());
+        return functions;
+    }
+
+    /**
+     * @return the functions of the PDA, which must not be modified
+     */
+    public List<Function> getFunctions() {
+        return Collections.unmodifiableList(functions());
     }
 
     public List<State> getStates(){
-        return functions.stream()
+        return functions().stream()
                 .flatMap(fn -> Arrays.stream(fn.getStates()))
                 .distinct()
                 .toList();
     }
 
+    /**
+     * Returns the alphabet of the PDA. The alphabet is cached until another function is added and must not be modified.
+     */
     public Alphabet getAlphabet(){
-        TerminalSymbol[] terminals = functions.stream()
-                .map(fn ->fn.start().terminalSymbol())
-                .distinct()
-                .toArray(TerminalSymbol[]::new);
+        Alphabet alphabet = this.alphabet;
+        if (alphabet == null) {
+            TerminalSymbol[] terminals;
+            if (functions == null) {
+                terminals = transitionTable.terminals()
+                        .mapToObj(t -> t == TransitionTable.EPSILON ? TerminalSymbol.EPSILON : SymbolTable.TERMINALS.get(t))
+                        .toArray(TerminalSymbol[]::new);
+            } else {
+                terminals = functions.stream()
+                        .map(fn -> fn.start().terminalSymbol())
+                        .distinct()
+                        .toArray(TerminalSymbol[]::new);
+            }
+
+            alphabet = new Alphabet(terminals);
+            this.alphabet = alphabet;
+        }
+        return alphabet;
+    }
+
+    /**
+     * Returns the compiled {@link TransitionTable} of the PDA. The table is built once and reused until another
+     * function is added.
+     *
+     * @return the transition table of the PDA
+     */
+    public TransitionTable getTransitionTable() {
+        TransitionTable table = transitionTable;
+        if (table == null) {
+            table = TransitionTable.compile(functions);
+            transitionTable = table;
+        }
+        return table;
+    }
 
-        return new Alphabet(terminals);
+    /**
+     * Replaces all functions of the PDA with a compiled table, like {@link #PDA(TransitionTable, State, Stack)} does
+     * for a new PDA. The initial state, the initial stack and the stack height limit are kept, so references to this
+     * PDA see the new functions. The table must contain the initial state.
+     *
+     * @param transitionTable the new transitions of the PDA
+     */
+    public void setTransitionTable(TransitionTable transitionTable) {
+        this.functions = null;
+        this.transitionTable = transitionTable;
+        this.alphabet = null;
     }
 
-    private Function[] findMatchingFunctions(State state, Symbol terminalSymbol, Symbol stackSymbol) {
-        return functions.stream()
-                .filter(fn ->
-                        fn.start().matches(state, terminalSymbol, stackSymbol)
-                                || fn.start().matches(state, TerminalSymbol.EPSILON, stackSymbol) // Spontaneous transition
-                )
-                .toArray(Function[]::new);
+    /**
+     * Writes the compiled {@link TransitionTable}, the initial state and the initial stack to a file in the
+     * {@link BinaryFormat}, so the PDA can be read with {@link #read(Path)} without parsing and compiling it again.
+     * The stack height limit is not written.
+     *
+     * @param path the file to write
+     * @throws IOException if the file can not be written
+     */
+    public void write(Path path) throws IOException {
+        TransitionTable table = getTransitionTable();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            BinaryFormat.writeHeader(out, BinaryFormat.PDA);
+            table.write(out);
+            BinaryFormat.writeString(out, initialState.identifier());
+            int[] stack = new int[this.stack.size()];
+            int i = 0;
+            for (StackSymbol symbol : this.stack) stack[i++] = symbol.id;
+            BinaryFormat.writeSymbols(out, SymbolTable.STACK_SYMBOLS, stack);
+        }
+    }
+
+    /**
+     * Reads a PDA written by {@link #write(Path)}. The file is memory-mapped and its arrays are used as the
+     * {@link TransitionTable}, see {@link #PDA(TransitionTable, State, Stack)}.
+     *
+     * @param path the file to read
+     * @return the PDA
+     * @throws IOException              if the file can not be read
+     * @throws IllegalArgumentException if the file does not contain a PDA of the current format version
+     */
+    public static PDA read(Path path) throws IOException {
+        ByteBuffer buffer = BinaryFormat.open(path, BinaryFormat.PDA);
+        try {
+            TransitionTable table = TransitionTable.read(buffer);
+            State initialState = new State(BinaryFormat.readString(buffer));
+            StackSymbol[] stack = Arrays.stream(BinaryFormat.readSymbols(buffer, SymbolTable.STACK_SYMBOLS))
+                    .mapToObj(SymbolTable.STACK_SYMBOLS::get)
+                    .toArray(StackSymbol[]::new);
+            return new PDA(table, initialState, Stack.of(stack));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("'%s' is corrupt".formatted(path), e);
+        }
+    }
+
+    /**
+     * Limits the height of the stack during {@link #accepts(Word)}. Configurations with a higher stack are dropped.
+     * This guarantees termination for automata that are not {@link #isTerminating() terminating} on their own, at the
+     * cost of rejecting words whose accepting runs need a higher stack.
+     *
+     * @param stackHeightLimit the maximal stack height, or a negative value for no limit
+     */
+    public void setStackHeightLimit(int stackHeightLimit) {
+        this.stackHeightLimit = stackHeightLimit;
+    }
+
+    /**
+     * Checks if {@link #accepts(Word)} is guaranteed to terminate. This is the case if a stack height limit is set, or if
+     * every stack symbol that a transition pushes requires at least one input symbol to be popped. Then the stack of a
+     * configuration that can still be accepted is never higher than the remaining input plus the initial stack, so
+     * only finitely many configurations are explored.
+     *
+     * @return Whether accepts is guaranteed to terminate
+     */
+    public boolean isTerminating() {
+        return stackHeightLimit >= 0 || getTransitionTable().minPushConsumption() > 0;
     }
 
     public void addFn(Function fn) {
-        functions.add(fn);
+        functions().add(fn);
+        transitionTable = null;
+        alphabet = null;
     }
 
     public Function addFn(From start, To... results) {
@@ -80,37 +226,40 @@ public class PDA implements ContextFreeAcceptor {
      * @param configuration The current configuration of the PDA
      * @return An array of PDA configurations
      */
-    private Configuration[] advance(Configuration configuration) {
+    private Configuration[] advance(TransitionTable table, Configuration configuration) {
         Word input = configuration.input();
+        int position = configuration.position();
         Stack stack = configuration.stack();
 
+        if (stack.isEmpty()) return new Configuration[0];
 
-        Symbol terminalSymbol = input.first();
-        Symbol stackSymbol = stack.peek();
-
+        int state = table.stateId(configuration.state());
+        int stackSymbol = stack.peekId();
+        int terminalSymbol = configuration.inputConsumed() ? -1 : input.terminalIdAt(position);
 
-        Function[] matchingFunctions = findMatchingFunctions(configuration.state(), terminalSymbol, stackSymbol);
+        int consuming = terminalSymbol < 0 ? TransitionTable.NONE : table.find(state, terminalSymbol, stackSymbol);
+        int spontaneous = table.find(state, TransitionTable.EPSILON, stackSymbol);
 
         List<Configuration> configurations = new ArrayList<>();
 
-        for (Function fn : matchingFunctions) {
-            for (To result : fn.results()) {
-                Word remainingInput = input;
-                Stack newStack = new Stack(stack);
-                if (!fn.start().terminalSymbol().equals(TerminalSymbol.EPSILON)) {
-                    remainingInput = input.removeFirstAndClone();
-                }
-                newStack.pop();
-
-                newStack.addAllReversed(List.of(result.stackSymbols()));
-
-                configurations.add(new Configuration(result.state(), remainingInput, newStack));
-            }
+        if (consuming != TransitionTable.NONE) {
+            addSuccessors(table, consuming, input, position + 1, stack, configurations);
+        }
+        if (spontaneous != TransitionTable.NONE) {
+            addSuccessors(table, spontaneous, input, position, stack, configurations);
         }
 
         return configurations.toArray(new Configuration[0]);
     }
 
+    private void addSuccessors(TransitionTable table, int bucket, Word input, int position, Stack stack, List<Configuration> configurations) {
+        for (int edge = table.bucketStart(bucket); edge < table.bucketEnd(bucket); edge++) {
+            Stack newStack = stack.pop().pushAll(table.push(edge), table);
+
+            configurations.add(new Configuration(table.state(table.target(edge)), input, position, newStack));
+        }
+    }
+
 
     /**
      * Checks if the PDA accepts a given word
@@ -119,35 +268,189 @@ public class PDA implements ContextFreeAcceptor {
      * @return Whether the PDA accepts the word
      */
     public boolean accepts(Word word) {
-        if (word == null) return false;
+        return accepts(word, AcceptOptions.UNLIMITED).isAccepted();
+    }
 
-        Configuration[] configurations = new Configuration[]{new Configuration(initialState, word, stack)};
+    /**
+     * Checks if the PDA accepts a given word within the budget of the options. The {@link #setStackHeightLimit(int)
+     * stack height limit} still rejects configurations, the maximal stack depth of the options only stops the call.
+     *
+     * @param word    The word to check
+     * @param options The resources the call may use
+     * @return Whether the PDA accepts the word, or which limit was hit before it could decide
+     */
+    public AcceptResult accepts(Word word, AcceptOptions options) {
+        if (word == null) return AcceptResult.REJECT;
+
+        TransitionTable table = getTransitionTable();
+        Configuration initial = new Configuration(initialState, word, 0, stack);
+        Budget budget = new Budget(options);
+        if (table.isDeterministic()) return acceptsDeterministic(table, initial, budget);
+        return search(table, initial, budget);
+    }
+
+    /**
+     * Starts a session on the {@link Frontier} of all configurations that are reachable after the input read so far.
+     * Each symbol costs one step of the automaton, and the session also terminates for automata that are not
+     * {@link #isTerminating() terminating}. With a {@link #setStackHeightLimit(int) stack height limit}, the symbols
+     * are buffered and run with {@link #accepts(Word)} instead.
+     */
+    @Override
+    public Recognizer recognizer() {
+        if (stackHeightLimit >= 0) return ContextFreeAcceptor.super.recognizer();
+        return new Frontier(getTransitionTable(), initialState, stack);
+    }
+
+    /**
+     * Compiles a deterministic PDA into the bytecode of a {@link CompiledPDA}, which accepts words like
+     * {@link #accepts(Word)} with the current functions and stack height limit. Automata that are not deterministic,
+     * or too large for a method, are not compiled; a warning is printed and a copy of this PDA is returned instead.
+     *
+     * @return the compiled acceptor, or a copy of this PDA
+     */
+    public ContextFreeAcceptor compile() {
+        TransitionTable table = getTransitionTable();
+        PDA interpreter = new PDA(table, initialState, stack);
+        interpreter.setStackHeightLimit(stackHeightLimit);
+        if (!table.isDeterministic()) {
+            System.out.println("Warning: The PDA is not deterministic, using the interpreter instead");
+            return interpreter;
+        }
+
+        try {
+            return new CompiledPDA(interpreter, table, initialState, stack, stackHeightLimit);
+        } catch (IllegalStateException | ReflectiveOperationException | LinkageError e) {
+            System.out.println("Warning: The PDA could not be compiled, using the interpreter instead: " + e.getMessage());
+            return interpreter;
+        }
+    }
+
+    /**
+     * Checks if the PDA is deterministic, so {@link #accepts(Word)} follows a single path without any search.
+     *
+     * @see TransitionTable#isDeterministic()
+     */
+    public boolean isDeterministic() {
+        return getTransitionTable().isDeterministic();
+    }
+
+    /**
+     * Searches all configurations that are reachable from the given one breadth first. Every step is counted against
+     * the budget, and configurations that are deeper than its stack depth are dropped.
+     */
+    private AcceptResult search(TransitionTable table, Configuration initial, Budget budget) {
+        Set<Configuration> visited = new HashSet<>();
+        Configuration[] configurations = new Configuration[]{initial};
 
         while (configurations.length > 0) {
-            // Get all possible configurations from the current configurations
-            configurations = Arrays.stream(configurations)
-                    .map(this::advance)
-                    .flatMap(Arrays::stream)
-                    .toArray(Configuration[]::new);
+            if (!budget.frontier(configurations.length)) return budget.exceeded();
+
+            List<Configuration> next = new ArrayList<>();
+            for (Configuration configuration : configurations) {
+                // Get all possible configurations from the current configuration
+                Configuration[] successors = advance(table, configuration);
 
-            // Check if any of the configurations are in an accepting state
-            boolean anyEmpty = Arrays.stream(configurations)
-                    .anyMatch(Configuration::accepted);
+                // Check if any of the configurations are in an accepting state
+                for (Configuration successor : successors) {
+                    if (successor.accepted()) return AcceptResult.ACCEPT;
+                }
+                // Counted per configuration, so a large step can not overrun the deadline
+                if (!budget.explore(successors.length)) return budget.exceeded();
+
+                // Drop invalid configurations, configurations that can't be accepted anymore and the ones already explored
+                for (Configuration successor : successors) {
+                    if (successor.valid()
+                            && canBeAccepted(table, successor)
+                            && budget.fits(successor.stack().size())
+                            && visited.add(successor)) {
+                        next.add(successor);
+                    }
+                }
+            }
+            configurations = next.toArray(Configuration[]::new);
+        }
 
-            if (anyEmpty) return true;
+        return budget.rejected();
+    }
 
-            configurations = Arrays.stream(configurations)
-                    .filter(Configuration::valid)
-                    .toArray(Configuration[]::new);
+    /**
+     * Runs a deterministic PDA on the single path of its configurations. The state, the input position and a
+     * primitive stack are updated in place, so no step allocates. The checks on every step are the same as in
+     * {@link #search(TransitionTable, Configuration, Budget)}.
+     * <p>
+     * A long run of spontaneous transitions may be a loop. In that case the run continues with the search from the
+     * current configuration, which detects repeated configurations.
+     */
+    private AcceptResult acceptsDeterministic(TransitionTable table, Configuration initial, Budget budget) {
+        Word input = initial.input();
+        int length = input.length();
+        int position = 0;
+        int state = table.stateId(initial.state());
+
+        // The stack ids from bottom to top
+        int height = initial.stack().size();
+        int[] stack = new int[Math.max(16, height)];
+        int i = height;
+        for (StackSymbol symbol : initial.stack()) stack[--i] = symbol.id;
+
+        int spontaneousLimit = 1024 + table.stateCount() * 16;
+        int spontaneous = 0;
+
+        while (height > 0) {
+            int terminal = position < length ? input.terminalIdAt(position) : -1;
+            int bucket = terminal < 0 ? TransitionTable.NONE : table.find(state, terminal, stack[height - 1]);
+            if (bucket != TransitionTable.NONE) {
+                position++;
+                spontaneous = 0;
+            } else {
+                bucket = table.find(state, TransitionTable.EPSILON, stack[height - 1]);
+                if (bucket == TransitionTable.NONE) return AcceptResult.REJECT;
+
+                if (++spontaneous > spontaneousLimit) {
+                    Stack current = Stack.EMPTY;
+                    for (int j = 0; j < height; j++) current = current.push(stack[j], table);
+                    return search(table, new Configuration(table.state(state), input, position, current), budget);
+                }
+            }
+            if (!budget.explore(1)) return budget.exceeded();
+
+            int edge = table.bucketStart(bucket);
+            int[] push = table.push(edge);
+            height--;
+            if (height + push.length > stack.length) stack = Arrays.copyOf(stack, Math.max(stack.length * 2, height + push.length));
+            for (int j = push.length - 1; j >= 0; j--) stack[height++] = push[j];
+            state = table.target(edge);
+
+            boolean consumed = position == length;
+            if (consumed && height == 0) return AcceptResult.ACCEPT;
+            // Same as Configuration.valid() and canBeAccepted()
+            if (consumed != (height == 0)) return AcceptResult.REJECT;
+            if (stackHeightLimit >= 0 && height > stackHeightLimit) return AcceptResult.REJECT;
+            if ((long) height * table.minStackConsumption() > length - position) return AcceptResult.REJECT;
+            if (!budget.fits(height)) return budget.exceeded();
         }
+        return AcceptResult.REJECT;
+    }
 
-        return false;
+    /**
+     * Checks if a configuration can still be accepted, based on the symbols of its stack.
+     */
+    private boolean canBeAccepted(TransitionTable table, Configuration configuration) {
+        int height = configuration.stack().size();
+        if (stackHeightLimit >= 0 && height > stackHeightLimit) return false;
+
+        // Every symbol on the stack needs at least its min consumption of input symbols to be popped. Summing them
+        // instead of using the smallest one keeps the stack bounded if only some symbols, like a start symbol with an
+        // epsilon transition, can be popped without input. The stack keeps the sum, so this does not walk it.
+        int remaining = configuration.remaining();
+        if ((long) height * table.minStackConsumption() > remaining) return false;
+        return configuration.stack().consumption() <= remaining;
     }
 
     public MinimalPDA toMinimalPDA(boolean trim){
         MinimalPDA pda = new MinimalPDA(initialState.identifier(), StackSymbol.START_SYMBOL.identifier, trim);
 
-        for (Function fn : functions) {
+        for (Function fn : functions()) {
             String startState = fn.start().state().identifier();
             TerminalSymbol startTerminalSymbol = fn.start().terminalSymbol();
             String startSymbol= startTerminalSymbol.isEpsilon() ? "" : startTerminalSymbol.identifier;
@@ -189,9 +492,13 @@ public class PDA implements ContextFreeAcceptor {
                         .map(s -> s.equals(cfg.start) ? StackSymbol.START_SYMBOL : s.asStackSymbol())
                         .toArray(StackSymbol[]::new);
 
-                if (alpha.length > 0) { // Don't add functions with epsilon transitions
+                if (alpha.length > 0) {
                     results.add(new To(z, alpha));
+                } else if (isStart) {
+                    // S -> ε pops the start symbol, so the empty word is accepted
+                    results.add(new To(z, StackSymbol.EPSILON));
                 }
+                // Other epsilon productions are dropped, normalize() moves them into the start variable
 
             }
             pda.addFn(
@@ -219,7 +526,7 @@ public class PDA implements ContextFreeAcceptor {
         sb.append("Initial state: ").append(initialState.identifier()).append("\n");
         sb.append("Stack: ").append(stack).append("\n");
         sb.append("Functions:\n");
-        for (Function fn : functions) {
+        for (Function fn : functions()) {
             sb.append(fn).append("\n");
         }
         return sb.toString();
@@ -0,0 +1,126 @@
+package pushdown_automaton;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Summarizes the runs of a {@link TransitionTable} on a single stack symbol, independent of the input and of the rest
+ * of the stack:
+ * <ul>
+ *     <li>{@link #pop(int, int)}: the states in which a run from a state with the symbol on top can first reach the
+ *     stack below the symbol</li>
+ *     <li>{@link #accepting(int, int)}: whether a run from a state with only the symbol on the stack can be accepted,
+ *     i.e. ends with a consuming transition that empties the stack</li>
+ * </ul>
+ * Both are least fixpoints over all transitions. A configuration can still be accepted if its stack can be popped
+ * symbol by symbol down to the last one, which is accepting. The {@link Frontier} uses this to decide whether a prefix
+ * is viable.
+ *
+ * @author Matthias Harzer
+ */
+final class PopSummary {
+    private static final BitSet NONE = new BitSet();
+
+    private final int states;
+    // Local index by stack symbol id, -1 for symbols without transitions
+    private final int[] symbolIndex;
+    private final int symbols;
+    // By state * symbols + symbol
+    private final BitSet[] pop;
+    private final boolean[] accepting;
+
+    PopSummary(TransitionTable table) {
+        this.states = table.stateCount();
+
+        int maxId = -1;
+        for (int b = 0; b < table.bucketCount(); b++) maxId = Math.max(maxId, table.bucketStackSymbol(b));
+        this.symbolIndex = new int[maxId + 1];
+        Arrays.fill(symbolIndex, -1);
+        int symbols = 0;
+        for (int b = 0; b < table.bucketCount(); b++) {
+            int symbol = table.bucketStackSymbol(b);
+            if (symbolIndex[symbol] < 0) symbolIndex[symbol] = symbols++;
+        }
+        this.symbols = symbols;
+
+        this.pop = new BitSet[states * symbols];
+        for (int i = 0; i < pop.length; i++) pop[i] = new BitSet();
+        this.accepting = new boolean[states * symbols];
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int b = 0; b < table.bucketCount(); b++) {
+                BitSet target = pop[index(table.bucketState(b), table.bucketStackSymbol(b))];
+                for (int edge = table.bucketStart(b); edge < table.bucketEnd(b); edge++) {
+                    int[] push = table.push(edge);
+                    BitSet after = popAll(table.target(edge), push, push.length);
+                    int before = target.cardinality();
+                    target.or(after);
+                    changed |= target.cardinality() != before;
+                }
+            }
+        }
+
+        changed = true;
+        while (changed) {
+            changed = false;
+            for (int b = 0; b < table.bucketCount(); b++) {
+                int index = index(table.bucketState(b), table.bucketStackSymbol(b));
+                if (accepting[index]) continue;
+
+                for (int edge = table.bucketStart(b); edge < table.bucketEnd(b) && !accepting[index]; edge++) {
+                    int[] push = table.push(edge);
+                    if (push.length == 0) {
+                        accepting[index] = table.bucketTerminal(b) != TransitionTable.EPSILON;
+                    } else {
+                        // Pop everything but the last symbol, which is then the whole stack
+                        BitSet after = popAll(table.target(edge), push, push.length - 1);
+                        for (int s = after.nextSetBit(0); s >= 0 && !accepting[index]; s = after.nextSetBit(s + 1)) {
+                            accepting[index] = accepting(s, push[push.length - 1]);
+                        }
+                    }
+                    changed |= accepting[index];
+                }
+            }
+        }
+    }
+
+    private int index(int state, int stackSymbol) {
+        return state * symbols + symbolIndex[stackSymbol];
+    }
+
+    /**
+     * @return the states after popping the first <code>count</code> of the given symbols, starting in the given state
+     */
+    private BitSet popAll(int state, int[] push, int count) {
+        BitSet current = new BitSet();
+        current.set(state);
+        for (int i = 0; i < count && !current.isEmpty(); i++) {
+            BitSet next = new BitSet();
+            for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) next.or(pop(s, push[i]));
+            current = next;
+        }
+        return current;
+    }
+
+    /**
+     * @return the states in which the stack below the given symbol can be reached. The set must not be modified.
+     */
+    BitSet pop(int state, int stackSymbol) {
+        if (stackSymbol < 0 || stackSymbol >= symbolIndex.length || symbolIndex[stackSymbol] < 0) return NONE;
+        return pop[index(state, stackSymbol)];
+    }
+
+    /**
+     * @return true if a configuration with the given state and only the given symbol on the stack can be accepted
+     */
+    boolean accepting(int state, int stackSymbol) {
+        if (stackSymbol < 0 || stackSymbol >= symbolIndex.length || symbolIndex[stackSymbol] < 0) return false;
+        return accepting[index(state, stackSymbol)];
+    }
+
+    int stateCount() {
+        return states;
+    }
+}
@@ -1,45 +1,226 @@
 package pushdown_automaton;
 
 import symbols.StackSymbol;
+import symbols.SymbolTable;
+
+import java.util.EmptyStackException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * Represents the stack of a pushdown automaton.
+ * <p>
+ * The stack is an immutable linked list of {@link SymbolTable stack symbol ids}. {@link #push(StackSymbol)} and
+ * {@link #pop()} return a new stack in O(1) that shares its tail with this one, so the configurations of a PDA can
+ * branch without copying their stacks.
+ * <p>
+ * Stacks that a {@link PDA} builds from its {@link TransitionTable} also sum up the
+ * {@link TransitionTable#minConsumption(int) min consumption} of their symbols, so checking whether the remaining
+ * input suffices to empty the stack does not walk it. Symbols pushed with the public methods count as zero.
  *
  * @author Matthias Harzer
  */
-public class Stack extends java.util.Stack<StackSymbol>{
-    public Stack() {
-        super();
+public final class Stack implements Iterable<StackSymbol> {
+    /**
+     * The empty stack.
+     */
+    public static final Stack EMPTY = new Stack();
+
+    private final int symbol;
+    private final Stack next;
+    private final int size;
+    private final int hash;
+    // The sum of the min consumption of all symbols
+    private final long consumption;
+
+    private Stack() {
+        this.symbol = -1;
+        this.next = null;
+        this.size = 0;
+        this.hash = 1;
+        this.consumption = 0;
     }
 
-    public Stack(Stack stack) {
-        super();
+    private Stack(int symbol, Stack next, int consumption) {
+        this.symbol = symbol;
+        this.next = next;
+        this.size = next.size + 1;
+        this.hash = 31 * next.hash + symbol;
+        this.consumption = next.consumption + consumption;
+    }
 
-        this.addAll(stack);
+    /**
+     * Creates a stack that contains the given symbols, the first symbol on top.
+     *
+     * @param symbols the symbols of the stack
+     * @return the new stack
+     */
+    public static Stack of(StackSymbol... symbols) {
+        return EMPTY.pushAll(symbols);
     }
 
     /**
-     * Pushes an element onto the stack. If the element is an epsilon, it will not be pushed.
-     * @param element element whose presence in this collection is to be ensured
-     * @return true if the element was pushed
+     * Pushes a symbol onto the stack. If the symbol is an epsilon, it will not be pushed.
+     *
+     * @param symbol the symbol to push
+     * @return the new stack
      */
+    public Stack push(StackSymbol symbol) {
+        if (symbol.isEpsilon()) return this;
+        return new Stack(symbol.id, this, 0);
+    }
+
+    /**
+     * Pushes the symbol with the given id onto the stack.
+     *
+     * @param symbol the stack symbol id to push
+     * @return the new stack
+     */
+    public Stack push(int symbol) {
+        return new Stack(symbol, this, 0);
+    }
+
+    /**
+     * Pushes all symbols onto the stack, such that the first symbol ends up on top. Epsilon symbols are skipped.
+     *
+     * @param symbols the symbols to push
+     * @return the new stack
+     */
+    public Stack pushAll(StackSymbol... symbols) {
+        Stack stack = this;
+        for (int i = symbols.length - 1; i >= 0; i--) {
+            stack = stack.push(symbols[i]);
+        }
+        return stack;
+    }
+
+    /**
+     * Pushes all symbol ids onto the stack, such that the first symbol ends up on top.
+     *
+     * @param symbols the stack symbol ids to push
+     * @return the new stack
+     */
+    public Stack pushAll(int[] symbols) {
+        Stack stack = this;
+        for (int i = symbols.length - 1; i >= 0; i--) {
+            stack = new Stack(symbols[i], stack, 0);
+        }
+        return stack;
+    }
+
+    /**
+     * Pushes the symbol with the given id onto the stack and adds its min consumption in the table.
+     */
+    Stack push(int symbol, TransitionTable table) {
+        return new Stack(symbol, this, table.minConsumption(symbol));
+    }
+
+    /**
+     * Pushes all symbol ids like {@link #pushAll(int[])} and adds their min consumption in the table.
+     */
+    Stack pushAll(int[] symbols, TransitionTable table) {
+        Stack stack = this;
+        for (int i = symbols.length - 1; i >= 0; i--) {
+            stack = stack.push(symbols[i], table);
+        }
+        return stack;
+    }
+
+    /**
+     * Removes the top symbol of the stack.
+     *
+     * @return the stack below the top symbol
+     */
+    public Stack pop() {
+        if (next == null) throw new EmptyStackException();
+        return next;
+    }
+
+    /**
+     * @return the top symbol of the stack
+     */
+    public StackSymbol peek() {
+        return SymbolTable.STACK_SYMBOLS.get(peekId());
+    }
+
+    /**
+     * @return the stack symbol id of the top symbol of the stack
+     */
+    public int peekId() {
+        if (next == null) throw new EmptyStackException();
+        return symbol;
+    }
+
+    public boolean isEmpty() {
+        return next == null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of input symbols that are at least needed to empty the stack, see {@link Stack}
+     */
+    long consumption() {
+        return consumption;
+    }
+
+    /**
+     * Iterates over the symbols of the stack, from top to bottom.
+     */
+    @Override
+    public Iterator<StackSymbol> iterator() {
+        return new Iterator<>() {
+            private Stack current = Stack.this;
+
+            @Override
+            public boolean hasNext() {
+                return !current.isEmpty();
+            }
+
+            @Override
+            public StackSymbol next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                StackSymbol symbol = current.peek();
+                current = current.next;
+                return symbol;
+            }
+        };
+    }
+
     @Override
-    public boolean add(StackSymbol element) {
-        if(element.isEpsilon()) {
-            return false;
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Stack other)) return false;
+
+        Stack a = this;
+        Stack b = other;
+        if (a.size != b.size || a.hash != b.hash) return false;
+        // Stop as soon as both stacks share the same tail
+        while (a != b) {
+            if (a.symbol != b.symbol) return false;
+            a = a.next;
+            b = b.next;
         }
+        return true;
+    }
 
-        return super.add(element);
+    @Override
+    public int hashCode() {
+        return hash;
     }
 
     /**
-     * Pushes all elements of the given collection onto the stack in reverse order.
-     * @param collection collection containing elements to be added to this collection
-     * @return true if all elements were pushed
+     * Returns the symbols of the stack from bottom to top.
      */
-    public boolean addAllReversed(java.util.Collection<? extends StackSymbol> collection) {
-        java.util.Collection<StackSymbol> clone = new java.util.ArrayList<>(collection);
-        java.util.Collections.reverse((java.util.List<?>) clone);
-        return clone.stream().allMatch(this::add);
+    @Override
+    public String toString() {
+        String[] symbols = new String[size];
+        Stack current = this;
+        for (int i = size - 1; i >= 0; i--) {
+            symbols[i] = current.peek().identifier;
+            current = current.next;
+        }
+        return "[" + String.join(", ", symbols) + "]";
     }
 }
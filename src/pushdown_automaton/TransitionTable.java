@@ -0,0 +1,667 @@
+package pushdown_automaton;
+
+import pushdown_automaton.functions.From;
+import pushdown_automaton.functions.Function;
+import pushdown_automaton.functions.To;
+import symbols.BinaryFormat;
+import symbols.StackSymbol;
+import symbols.Symbol;
+import symbols.SymbolTable;
+import symbols.TerminalSymbol;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * A compiled index over the {@link Function Functions} of a {@link PDA}.
+ * <p>
+ * States are mapped to dense int ids and symbols are identified by their {@link SymbolTable} ids. Every transition
+ * result is stored as an edge, and the edges are grouped into buckets keyed by <code>(state, terminal symbol, top stack symbol)</code>.
+ * Spontaneous transitions live in their own epsilon bucket per <code>(state, top stack symbol)</code>, so looking up
+ * the transitions of a configuration costs O(matching transitions) instead of O(|functions|). A key has 21 bits for
+ * each of its parts, so states and symbol ids must be below 2<sup>21</sup>; building a table with larger ones throws
+ * an {@link IllegalStateException}.
+ * <p>
+ * The table also knows the minimal number of input symbols that must be read to pop each stack symbol (see
+ * {@link #minConsumption(int)}). Transitions that push a symbol which can never be popped are dropped, since they
+ * cannot lead to an accepting configuration.
+ * <p>
+ * The table is {@link #isDeterministic() deterministic} if no configuration has more than one applicable transition.
+ *
+ * @see PDA#getTransitionTable()
+ * @author Matthias Harzer
+ */
+public final class TransitionTable {
+    /**
+     * The terminal id used to look up the spontaneous (epsilon) bucket.
+     */
+    public static final int EPSILON = -1;
+    /**
+     * Returned by the lookup methods if there is no matching id or bucket.
+     */
+    public static final int NONE = -2;
+    /**
+     * The minimal consumption of a stack symbol that can never be popped.
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    // A key packs the state, the stack symbol and the terminal + 1 into 21 bits each
+    private static final int KEY_BITS = 21;
+    private static final int KEY_LIMIT = 1 << KEY_BITS;
+    private static final long KEY_MASK = KEY_LIMIT - 1;
+
+    private final State[] states;
+    private final Map<State, Integer> stateIds;
+
+    // Open addressing hash table from bucket key to bucket index
+    private final long[] keys;
+    private final int[] slots;
+    private final int mask;
+
+    // Bucket b contains the edges bucketStart[b] (inclusive) to bucketStart[b + 1] (exclusive)
+    private final long[] bucketKeys;
+    private final int[] bucketStart;
+    private final int[] edgeTarget;
+    private final int[][] edgePush;
+    // The dead edges by bucket key, only kept to convert the table back into functions
+    private final Map<Long, List<Edge>> deadEdges = new LinkedHashMap<>();
+
+    // Minimal number of input symbols needed to pop a stack symbol, indexed by stack symbol id
+    private final int[] minConsumption;
+    private final int minStackConsumption;
+    private final boolean deterministic;
+    // Built on the first incremental session
+    private volatile PopSummary popSummary;
+
+    private TransitionTable(Builder builder) {
+        this.states = builder.states.toArray(State[]::new);
+        this.stateIds = builder.stateIds;
+        this.minConsumption = builder.minConsumption();
+        this.minStackConsumption = Arrays.stream(minConsumption).min().orElse(UNBOUNDED);
+
+        // Edges that push a symbol that can never be popped are dead
+        for (Map.Entry<Long, List<Edge>> entry : builder.buckets.entrySet()) {
+            entry.getValue().removeIf(e -> {
+                if (Arrays.stream(e.push()).noneMatch(s -> minConsumption(s) == UNBOUNDED)) return false;
+                deadEdges.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(e);
+                return true;
+            });
+        }
+        builder.buckets.values().removeIf(List::isEmpty);
+        this.deterministic = builder.isDeterministic();
+
+        int buckets = builder.buckets.size();
+        int capacity = Integer.highestOneBit(Math.max(4, buckets * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(slots, -1);
+
+        this.bucketKeys = new long[buckets];
+        this.bucketStart = new int[buckets + 1];
+        int edges = builder.buckets.values().stream().mapToInt(List::size).sum();
+        this.edgeTarget = new int[edges];
+        this.edgePush = new int[edges][];
+
+        int bucket = 0;
+        int edge = 0;
+        for (Map.Entry<Long, List<Edge>> entry : builder.buckets.entrySet()) {
+            insert(entry.getKey(), bucket);
+            bucketKeys[bucket] = entry.getKey();
+            bucketStart[bucket] = edge;
+            for (Edge e : entry.getValue()) {
+                edgeTarget[edge] = e.target();
+                edgePush[edge] = e.push();
+                edge++;
+            }
+            bucket++;
+        }
+        bucketStart[buckets] = edge;
+    }
+
+    private TransitionTable(State[] states, long[] keys, int[] slots, long[] bucketKeys, int[] bucketStart,
+                            int[] edgeTarget, int[][] edgePush, int[] minConsumption, int minStackConsumption,
+                            boolean deterministic) {
+        this.states = states;
+        this.stateIds = new HashMap<>();
+        for (int i = 0; i < states.length; i++) stateIds.put(states[i], i);
+        this.keys = keys;
+        this.slots = slots;
+        this.mask = slots.length - 1;
+        this.bucketKeys = bucketKeys;
+        this.bucketStart = bucketStart;
+        this.edgeTarget = edgeTarget;
+        this.edgePush = edgePush;
+        this.minConsumption = minConsumption;
+        this.minStackConsumption = minStackConsumption;
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * Compiles the given functions into a transition table.
+     *
+     * @param functions the functions of the PDA
+     * @return the compiled transition table
+     */
+    public static TransitionTable compile(List<Function> functions) {
+        Builder builder = new Builder();
+        for (Function fn : functions) builder.add(fn);
+        return builder.build();
+    }
+
+    /**
+     * Converts the table back into functions, one per bucket with one result per edge, followed by the dead edges.
+     *
+     * @return the functions of the table
+     */
+    List<Function> toFunctions() {
+        List<Function> functions = new ArrayList<>();
+        for (int b = 0; b < bucketCount(); b++) {
+            List<Edge> edges = new ArrayList<>();
+            for (int edge = bucketStart(b); edge < bucketEnd(b); edge++) edges.add(new Edge(target(edge), push(edge)));
+            functions.add(toFunction(bucketKeys[b], edges));
+        }
+        for (Map.Entry<Long, List<Edge>> entry : deadEdges.entrySet()) {
+            functions.add(toFunction(entry.getKey(), entry.getValue()));
+        }
+        return functions;
+    }
+
+    private Function toFunction(long key, List<Edge> edges) {
+        int terminal = keyTerminal(key);
+        From from = new From(
+                state(keyState(key)),
+                terminal == EPSILON ? TerminalSymbol.EPSILON : SymbolTable.TERMINALS.get(terminal),
+                SymbolTable.STACK_SYMBOLS.get(keyStackSymbol(key))
+        );
+        To[] results = edges.stream()
+                .map(e -> new To(state(e.target()), Arrays.stream(e.push()).mapToObj(SymbolTable.STACK_SYMBOLS::get).toArray(StackSymbol[]::new)))
+                .toArray(To[]::new);
+        return new Function(from, results);
+    }
+
+    /**
+     * @return the ids of all terminal symbols the edges read, including the dead edges and {@link #EPSILON}
+     */
+    IntStream terminals() {
+        return LongStream.concat(Arrays.stream(bucketKeys), deadEdges.keySet().stream().mapToLong(Long::longValue))
+                .mapToInt(TransitionTable::keyTerminal)
+                .distinct();
+    }
+
+    /**
+     * Writes the table in the {@link BinaryFormat}: the states, the symbols, the hash index, the buckets, the edges,
+     * the dead edges and the minimal consumption. Symbol ids are stored as they are, together with the identifiers of
+     * the symbols, so {@link #read(ByteBuffer)} only has to map them if they differ in the reading JVM.
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(states.length);
+        for (State state : states) BinaryFormat.writeString(out, state.identifier());
+
+        long[] deadKeys = deadEdges.keySet().stream().mapToLong(Long::longValue).toArray();
+        int[] terminals = LongStream.concat(Arrays.stream(bucketKeys), Arrays.stream(deadKeys))
+                .mapToInt(TransitionTable::keyTerminal)
+                .filter(t -> t != EPSILON)
+                .distinct()
+                .toArray();
+        int[] stackSymbols = IntStream.concat(
+                        LongStream.concat(Arrays.stream(bucketKeys), Arrays.stream(deadKeys)).mapToInt(TransitionTable::keyStackSymbol),
+                        Stream.concat(Arrays.stream(edgePush), deadEdges.values().stream().flatMap(List::stream).map(Edge::push))
+                                .flatMapToInt(Arrays::stream))
+                .distinct()
+                .toArray();
+        BinaryFormat.writeInts(out, terminals);
+        BinaryFormat.writeSymbols(out, SymbolTable.TERMINALS, terminals);
+        BinaryFormat.writeInts(out, stackSymbols);
+        BinaryFormat.writeSymbols(out, SymbolTable.STACK_SYMBOLS, stackSymbols);
+
+        BinaryFormat.writeLongs(out, keys);
+        BinaryFormat.writeInts(out, slots);
+        BinaryFormat.writeLongs(out, bucketKeys);
+        BinaryFormat.writeInts(out, bucketStart);
+        BinaryFormat.writeInts(out, edgeTarget);
+        BinaryFormat.writeNested(out, edgePush);
+
+        List<Edge> dead = deadEdges.values().stream().flatMap(List::stream).toList();
+        BinaryFormat.writeLongs(out, deadKeys);
+        BinaryFormat.writeInts(out, deadEdges.values().stream().mapToInt(List::size).toArray());
+        BinaryFormat.writeInts(out, dead.stream().mapToInt(Edge::target).toArray());
+        BinaryFormat.writeNested(out, dead.stream().map(Edge::push).toArray(int[][]::new));
+
+        BinaryFormat.writeInts(out, minConsumption);
+        out.writeInt(minStackConsumption);
+        out.writeBoolean(deterministic);
+    }
+
+    /**
+     * Reads a table written by {@link #write(DataOutputStream)}. If the symbols have the same ids as in the writing
+     * JVM, the arrays and the hash index are used as they are. Otherwise the ids are mapped and the index is rebuilt.
+     */
+    static TransitionTable read(ByteBuffer buffer) {
+        State[] states = new State[buffer.getInt()];
+        for (int i = 0; i < states.length; i++) states[i] = new State(BinaryFormat.readString(buffer));
+
+        int[] terminals = remap(BinaryFormat.readInts(buffer), BinaryFormat.readSymbols(buffer, SymbolTable.TERMINALS));
+        int[] stackSymbols = remap(BinaryFormat.readInts(buffer), BinaryFormat.readSymbols(buffer, SymbolTable.STACK_SYMBOLS));
+
+        long[] keys = BinaryFormat.readLongs(buffer);
+        int[] slots = BinaryFormat.readInts(buffer);
+        long[] bucketKeys = BinaryFormat.readLongs(buffer);
+        int[] bucketStart = BinaryFormat.readInts(buffer);
+        int[] edgeTarget = BinaryFormat.readInts(buffer);
+        int[][] edgePush = BinaryFormat.readNested(buffer);
+
+        long[] deadKeys = BinaryFormat.readLongs(buffer);
+        int[] deadCounts = BinaryFormat.readInts(buffer);
+        int[] deadTargets = BinaryFormat.readInts(buffer);
+        int[][] deadPush = BinaryFormat.readNested(buffer);
+
+        int[] minConsumption = BinaryFormat.readInts(buffer);
+        int minStackConsumption = buffer.getInt();
+        boolean deterministic = buffer.get() != 0;
+
+        if (terminals != null || stackSymbols != null) {
+            for (int b = 0; b < bucketKeys.length; b++) bucketKeys[b] = remap(bucketKeys[b], terminals, stackSymbols);
+            for (int d = 0; d < deadKeys.length; d++) deadKeys[d] = remap(deadKeys[d], terminals, stackSymbols);
+            if (stackSymbols != null) {
+                for (int[] push : edgePush) remapAll(push, stackSymbols);
+                for (int[] push : deadPush) remapAll(push, stackSymbols);
+
+                int[] mapped = new int[Arrays.stream(bucketKeys).mapToInt(TransitionTable::keyStackSymbol).max().orElse(-1) + 1];
+                Arrays.fill(mapped, UNBOUNDED);
+                for (int s = 0; s < minConsumption.length; s++) {
+                    if (minConsumption[s] != UNBOUNDED) mapped[stackSymbols[s]] = minConsumption[s];
+                }
+                minConsumption = mapped;
+            }
+
+            Arrays.fill(slots, -1);
+            Arrays.fill(keys, 0);
+        }
+
+        TransitionTable table = new TransitionTable(states, keys, slots, bucketKeys, bucketStart, edgeTarget, edgePush,
+                minConsumption, minStackConsumption, deterministic);
+        if (terminals != null || stackSymbols != null) {
+            for (int b = 0; b < bucketKeys.length; b++) table.insert(bucketKeys[b], b);
+        }
+        int edge = 0;
+        for (int d = 0; d < deadKeys.length; d++) {
+            List<Edge> edges = table.deadEdges.computeIfAbsent(deadKeys[d], k -> new ArrayList<>());
+            for (int i = 0; i < deadCounts[d]; i++, edge++) edges.add(new Edge(deadTargets[edge], deadPush[edge]));
+        }
+        return table;
+    }
+
+    /**
+     * @return the ids in this JVM by stored id, or null if every symbol kept its id
+     */
+    private static int[] remap(int[] stored, int[] ids) {
+        if (Arrays.equals(stored, ids)) return null;
+        int[] remap = new int[Arrays.stream(stored).max().orElse(-1) + 1];
+        Arrays.fill(remap, -1);
+        for (int i = 0; i < stored.length; i++) remap[stored[i]] = ids[i];
+        return remap;
+    }
+
+    private static long remap(long key, int[] terminals, int[] stackSymbols) {
+        int terminal = keyTerminal(key);
+        int stackSymbol = keyStackSymbol(key);
+        return checkedKey(keyState(key),
+                terminals == null || terminal == EPSILON ? terminal : terminals[terminal],
+                stackSymbols == null ? stackSymbol : stackSymbols[stackSymbol]);
+    }
+
+    private static void remapAll(int[] symbols, int[] stackSymbols) {
+        for (int i = 0; i < symbols.length; i++) symbols[i] = stackSymbols[symbols[i]];
+    }
+
+    private static long key(int state, int terminal, int stackSymbol) {
+        // terminal + 1 maps EPSILON to 0, so all three parts are non-negative
+        return ((long) state << (2 * KEY_BITS)) | ((long) stackSymbol << KEY_BITS) | (terminal + 1);
+    }
+
+    /**
+     * Like {@link #key(int, int, int)}, but throws if a part does not fit into its field. Symbol ids are global and
+     * only grow, so a long-running JVM can run out of them; a truncated id would silently collide with another one.
+     */
+    private static long checkedKey(int state, int terminal, int stackSymbol) {
+        checkFits("state", state, 0, KEY_LIMIT);
+        checkFits("terminal symbol", terminal, EPSILON, KEY_LIMIT - 1);
+        checkFits("stack symbol", stackSymbol, 0, KEY_LIMIT);
+        return key(state, terminal, stackSymbol);
+    }
+
+    private static void checkFits(String kind, int id, int min, int limit) {
+        if (id < min || id >= limit) {
+            throw new IllegalStateException("The %s id %d does not fit into a transition table, ids must be below %d"
+                    .formatted(kind, id, limit));
+        }
+    }
+
+    private static int keyState(long key) {
+        return (int) (key >>> (2 * KEY_BITS));
+    }
+
+    private static int keyTerminal(long key) {
+        return (int) (key & KEY_MASK) - 1;
+    }
+
+    private static int keyStackSymbol(long key) {
+        return (int) (key >>> KEY_BITS & KEY_MASK);
+    }
+
+    private static boolean keyConsumes(long key) {
+        return (key & KEY_MASK) != 0;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void insert(long key, int bucket) {
+        int i = hash(key) & mask;
+        while (slots[i] != -1) i = (i + 1) & mask;
+        keys[i] = key;
+        slots[i] = bucket;
+    }
+
+    /**
+     * Finds the bucket of edges that leave the given state with the given terminal symbol and top stack symbol.
+     *
+     * @param state       the state id
+     * @param terminal    the terminal id, or {@link #EPSILON} for spontaneous transitions
+     * @param stackSymbol the stack symbol id of the top of the stack
+     * @return the bucket index, or {@link #NONE} if no transition matches
+     */
+    public int find(int state, int terminal, int stackSymbol) {
+        // Ids that do not fit into a key can not be part of a transition
+        if (state < 0 || stackSymbol < 0 || stackSymbol >= KEY_LIMIT || terminal == NONE || terminal + 1 >= KEY_LIMIT) {
+            return NONE;
+        }
+        long key = key(state, terminal, stackSymbol);
+        int i = hash(key) & mask;
+        while (slots[i] != -1) {
+            if (keys[i] == key) return slots[i];
+            i = (i + 1) & mask;
+        }
+        return NONE;
+    }
+
+    public int bucketCount() {
+        return bucketKeys.length;
+    }
+
+    /**
+     * @return the id of the state the edges of the given bucket leave
+     */
+    public int bucketState(int bucket) {
+        return keyState(bucketKeys[bucket]);
+    }
+
+    /**
+     * @return the terminal id the edges of the given bucket read, or {@link #EPSILON} for spontaneous transitions
+     */
+    public int bucketTerminal(int bucket) {
+        return keyTerminal(bucketKeys[bucket]);
+    }
+
+    /**
+     * @return the id of the top stack symbol the edges of the given bucket pop
+     */
+    public int bucketStackSymbol(int bucket) {
+        return keyStackSymbol(bucketKeys[bucket]);
+    }
+
+    /**
+     * @return the index of the first edge of the given bucket
+     */
+    public int bucketStart(int bucket) {
+        return bucketStart[bucket];
+    }
+
+    /**
+     * @return the index after the last edge of the given bucket
+     */
+    public int bucketEnd(int bucket) {
+        return bucketStart[bucket + 1];
+    }
+
+    /**
+     * @return the id of the state the given edge leads to
+     */
+    public int target(int edge) {
+        return edgeTarget[edge];
+    }
+
+    /**
+     * @return the stack symbol ids the given edge pushes, top first and without epsilon symbols
+     */
+    public int[] push(int edge) {
+        return edgePush[edge];
+    }
+
+    public int stateId(State state) {
+        Integer id = stateIds.get(state);
+        return id == null ? NONE : id;
+    }
+
+    public State state(int id) {
+        return states[id];
+    }
+
+    /**
+     * Returns the id of the given terminal symbol. Symbols that are not terminal symbols never match a transition.
+     */
+    public int terminalId(Symbol symbol) {
+        return symbol instanceof TerminalSymbol ? symbol.id : NONE;
+    }
+
+    public int stackSymbolId(Symbol symbol) {
+        return symbol instanceof StackSymbol ? symbol.id : NONE;
+    }
+
+    /**
+     * Returns the minimal number of input symbols that have to be read to pop the given stack symbol, over all states.
+     *
+     * @param stackSymbol the stack symbol id
+     * @return the minimal consumption, or {@link #UNBOUNDED} if the symbol can never be popped
+     */
+    public int minConsumption(int stackSymbol) {
+        return stackSymbol >= 0 && stackSymbol < minConsumption.length ? minConsumption[stackSymbol] : UNBOUNDED;
+    }
+
+    /**
+     * Returns the minimal consumption of all stack symbols. If it is at least one, every symbol on the stack needs its
+     * own input symbol, so the stack of an accepting run never grows beyond the remaining input.
+     *
+     * @return the minimal consumption of all stack symbols
+     */
+    public int minStackConsumption() {
+        return minStackConsumption;
+    }
+
+    /**
+     * Returns the minimal consumption of all stack symbols that are pushed by a transition. Only the symbols of the
+     * initial stack can be cheaper, so if it is at least one, the stack of an accepting run grows beyond the remaining
+     * input by at most the height of the initial stack.
+     *
+     * @return the minimal consumption of all pushed stack symbols, or {@link #UNBOUNDED} if no transition pushes
+     */
+    public int minPushConsumption() {
+        int min = UNBOUNDED;
+        for (int[] push : edgePush) {
+            for (int symbol : push) min = Math.min(min, minConsumption(symbol));
+        }
+        return min;
+    }
+
+    /**
+     * Checks if the automaton is deterministic: every bucket has at most one edge, and no state has both a spontaneous
+     * and a consuming transition for the same top stack symbol. Then every configuration has at most one successor.
+     *
+     * @return true if the automaton is deterministic
+     */
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    /**
+     * Returns the summary of the runs that pop a single stack symbol. It is computed on the first call.
+     */
+    PopSummary popSummary() {
+        PopSummary summary = popSummary;
+        if (summary == null) {
+            summary = new PopSummary(this);
+            popSummary = summary;
+        }
+        return summary;
+    }
+
+    public int stateCount() {
+        return states.length;
+    }
+
+    public int edgeCount() {
+        return edgeTarget.length;
+    }
+
+    private record Edge(int target, int[] push) {
+    }
+
+    /**
+     * Collects the edges of a table, e.g. from {@link parser.PDAParser#load(java.io.Reader)} without creating a
+     * {@link Function} for every line.
+     */
+    public static final class Builder {
+        private final List<State> states = new ArrayList<>();
+        private final Map<State, Integer> stateIds = new HashMap<>();
+        private final Map<Long, List<Edge>> buckets = new LinkedHashMap<>();
+
+        /**
+         * @return the id of the given state, assigning the next free id if the state is new
+         */
+        public int state(State state) {
+            return stateIds.computeIfAbsent(state, s -> {
+                states.add(s);
+                return states.size() - 1;
+            });
+        }
+
+        /**
+         * Adds an edge.
+         *
+         * @param from        the id of the state the edge leaves
+         * @param terminal    the id of the terminal symbol it reads, or {@link #EPSILON} for a spontaneous transition
+         * @param stackSymbol the id of the stack symbol it pops
+         * @param to          the id of the state the edge leads to
+         * @param push        the ids of the stack symbols it pushes, top first and without epsilon symbols
+         */
+        public void add(int from, int terminal, int stackSymbol, int to, int[] push) {
+            checkFits("state", to, 0, KEY_LIMIT);
+            for (int symbol : push) checkFits("stack symbol", symbol, 0, KEY_LIMIT);
+            buckets.computeIfAbsent(checkedKey(from, terminal, stackSymbol), k -> new ArrayList<>())
+                    .add(new Edge(to, push));
+        }
+
+        public TransitionTable build() {
+            return new TransitionTable(this);
+        }
+
+        /**
+         * Computes the minimal consumption of every stack symbol with Knuth's generalization of Dijkstra's algorithm:
+         * repeatedly fix the symbol with the cheapest transition whose pushed symbols are all fixed already. An edge
+         * waits for its pushed symbols and is queued with its cost once the last of them is fixed.
+         */
+        private int[] minConsumption() {
+            int symbols = buckets.keySet().stream().mapToInt(TransitionTable::keyStackSymbol).max().orElse(-1) + 1;
+            int[] cost = new int[symbols];
+            Arrays.fill(cost, UNBOUNDED);
+
+            int edges = buckets.values().stream().mapToInt(List::size).sum();
+            int[] edgeSymbol = new int[edges];
+            long[] edgeCost = new long[edges];
+            int[] waiting = new int[edges];
+            // The edges that push a symbol, as linked lists with one entry per pushed occurrence
+            int[] firstUse = new int[symbols];
+            Arrays.fill(firstUse, -1);
+            int[] useEdge = new int[buckets.values().stream().flatMap(List::stream).mapToInt(e -> e.push().length).sum()];
+            int[] nextUse = new int[useEdge.length];
+            // Cost in the upper and edge in the lower 32 bits, so the cheapest edge comes first
+            PriorityQueue<Long> ready = new PriorityQueue<>();
+
+            int edge = 0;
+            int uses = 0;
+            for (Map.Entry<Long, List<Edge>> entry : buckets.entrySet()) {
+                for (Edge e : entry.getValue()) {
+                    edgeSymbol[edge] = keyStackSymbol(entry.getKey());
+                    edgeCost[edge] = keyConsumes(entry.getKey()) ? 1 : 0;
+                    for (int pushed : e.push()) {
+                        // A symbol without transitions is never fixed, so the edge waits forever
+                        waiting[edge]++;
+                        if (pushed >= symbols) continue;
+                        useEdge[uses] = edge;
+                        nextUse[uses] = firstUse[pushed];
+                        firstUse[pushed] = uses++;
+                    }
+                    if (waiting[edge] == 0) ready.add(edgeCost[edge] << 32 | edge);
+                    edge++;
+                }
+            }
+
+            while (!ready.isEmpty()) {
+                long next = ready.poll();
+                int symbol = edgeSymbol[(int) next];
+                if (cost[symbol] != UNBOUNDED) continue;
+
+                cost[symbol] = (int) (next >>> 32);
+                for (int use = firstUse[symbol]; use >= 0; use = nextUse[use]) {
+                    int e = useEdge[use];
+                    edgeCost[e] += cost[symbol];
+                    if (--waiting[e] == 0 && edgeCost[e] < UNBOUNDED) ready.add(edgeCost[e] << 32 | e);
+                }
+            }
+            return cost;
+        }
+
+        private boolean isDeterministic() {
+            // The kinds of transitions by (state, top stack symbol): 1 for spontaneous, 2 for consuming ones
+            Map<Long, Integer> kinds = new HashMap<>();
+            for (Map.Entry<Long, List<Edge>> entry : buckets.entrySet()) {
+                if (entry.getValue().size() > 1) return false;
+                int kind = keyConsumes(entry.getKey()) ? 2 : 1;
+                if (kinds.merge(entry.getKey() & ~KEY_MASK, kind, (a, b) -> a | b) == 3) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Adds an edge for every result of the function.
+         */
+        public void add(Function fn) {
+            int from = state(fn.start().state());
+            TerminalSymbol terminalSymbol = fn.start().terminalSymbol();
+            int terminal = terminalSymbol.isEpsilon() ? EPSILON : terminalSymbol.id;
+            int stackSymbol = fn.start().stackSymbol().id;
+
+            for (To result : fn.results()) {
+                int[] push = Arrays.stream(result.stackSymbols())
+                        .filter(s -> !s.isEpsilon())
+                        .mapToInt(s -> s.id)
+                        .toArray();
+                add(from, terminal, stackSymbol, state(result.state()), push);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package symbols;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The building blocks of the binary files written by {@link grammar.ContextFreeGrammar#write(Path)} and
+ * {@link pushdown_automaton.PDA#write(Path)}.
+ * <p>
+ * A file starts with a header of the {@link #MAGIC magic number}, the {@link #VERSION version} and the kind of its
+ * content, followed by sections of big-endian ints: int arrays are stored with their length, symbols by their UTF-8
+ * identifiers. Ids of a {@link SymbolTable} depend on the order in which symbols were created, so a reader interns the
+ * identifiers with {@link #readSymbols} and maps ids of the writing JVM to its own.
+ * <p>
+ * Files are read from a memory-mapped buffer, and int arrays are copied out of it in bulk.
+ *
+ * @author Matthias Harzer
+ */
+public final class BinaryFormat {
+    /**
+     * The first four bytes of every file, <code>CFAB</code>.
+     */
+    public static final int MAGIC = 0x43464142;
+    /**
+     * The version of the format. Files of other versions are rejected.
+     */
+    public static final int VERSION = 1;
+    /**
+     * The kinds of content a file can have.
+     */
+    public static final int GRAMMAR = 1, PDA = 2;
+
+    private BinaryFormat() {
+    }
+
+    public static void writeHeader(DataOutputStream out, int kind) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(kind);
+    }
+
+    /**
+     * Maps a file into memory and checks its header.
+     *
+     * @param path the file to map
+     * @param kind the expected kind of content
+     * @return the buffer of the file, positioned after the header
+     * @throws IOException              if the file can not be read
+     * @throws IllegalArgumentException if the file is not of the expected kind, version or format
+     */
+    public static ByteBuffer open(Path path, int kind) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("'%s' is not a binary grammar or PDA file".formatted(path));
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("'%s' has version %d, expected %d".formatted(path, version, VERSION));
+        }
+        int actual = buffer.getInt();
+        if (actual != kind) {
+            throw new IllegalArgumentException("'%s' contains a %s, expected a %s".formatted(path, kindName(actual), kindName(kind)));
+        }
+        return buffer;
+    }
+
+    private static String kindName(int kind) {
+        return switch (kind) {
+            case GRAMMAR -> "grammar";
+            case PDA -> "PDA";
+            default -> "content of kind " + kind;
+        };
+    }
+
+    public static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) out.writeInt(value);
+    }
+
+    public static int[] readInts(ByteBuffer buffer) {
+        int[] values = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    public static void writeLongs(DataOutputStream out, long[] values) throws IOException {
+        out.writeInt(values.length);
+        for (long value : values) out.writeLong(value);
+    }
+
+    public static long[] readLongs(ByteBuffer buffer) {
+        long[] values = new long[buffer.getInt()];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Long.BYTES);
+        return values;
+    }
+
+    /**
+     * Stores arrays of ints, like the right-hand sides of rules, as one array of offsets and one of all values.
+     */
+    public static void writeNested(DataOutputStream out, int[][] values) throws IOException {
+        int[] start = new int[values.length + 1];
+        for (int i = 0; i < values.length; i++) start[i + 1] = start[i] + values[i].length;
+        writeInts(out, start);
+        out.writeInt(start[values.length]);
+        for (int[] value : values) {
+            for (int v : value) out.writeInt(v);
+        }
+    }
+
+    public static int[][] readNested(ByteBuffer buffer) {
+        int[] start = readInts(buffer);
+        int[] all = readInts(buffer);
+        int[][] values = new int[start.length - 1][];
+        for (int i = 0; i < values.length; i++) values[i] = Arrays.copyOfRange(all, start[i], start[i + 1]);
+        return values;
+    }
+
+    public static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the identifiers of the given symbols of a table.
+     *
+     * @param ids the ids of the symbols in the table
+     */
+    public static void writeSymbols(DataOutputStream out, SymbolTable<?> table, int[] ids) throws IOException {
+        out.writeInt(ids.length);
+        for (int id : ids) writeString(out, table.identifier(id));
+    }
+
+    /**
+     * Reads symbols written by {@link #writeSymbols} and interns them into the given table.
+     *
+     * @return the ids of the symbols in the given table, in the order they were written
+     */
+    public static int[] readSymbols(ByteBuffer buffer, SymbolTable<?> table) {
+        int[] ids = new int[buffer.getInt()];
+        for (int i = 0; i < ids.length; i++) ids[i] = table.id(readString(buffer));
+        return ids;
+    }
+}
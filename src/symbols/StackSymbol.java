@@ -10,18 +10,18 @@ public class StackSymbol extends Symbol {
     /**
      * The StackSymbol representation of the epsilon symbol.
      */
-    public static final StackSymbol EPSILON = new StackSymbol("<ε>");
+    public static final StackSymbol EPSILON = SymbolTable.STACK_SYMBOLS.intern("<ε>");
     /**
      * The start symbol of the pushdown automaton.
      */
-    public static final StackSymbol START_SYMBOL = new StackSymbol("<#>");
+    public static final StackSymbol START_SYMBOL = SymbolTable.STACK_SYMBOLS.intern("<#>");
 
     public StackSymbol(String identifier) {
-        super(identifier);
+        super(identifier, SymbolTable.STACK_SYMBOLS.id(identifier));
     }
 
     public boolean isStartSymbol() {
-        return this == START_SYMBOL;
+        return START_SYMBOL.equals(this);
     }
 
 }
@@ -7,38 +7,50 @@ package symbols;
  * @see TerminalSymbol
  * @see VariableSymbol
  * @see Epsilon
+ * @see SymbolTable
  *
  * @author Matthias Harzer
  */
 public abstract class Symbol {
+    private static final Epsilon DEFAULT_EPSILON = new Epsilon();
+
     /**
      * The default epsilon symbol.
      * @return The default epsilon symbol.
      */
     public static Epsilon defaultEpsilon() {
-        return new Epsilon();
+        return DEFAULT_EPSILON;
     }
 
     public final String identifier;
+    /**
+     * The id of the symbol in the {@link SymbolTable} of its kind, or -1 if the symbol is not interned.
+     */
+    public final int id;
 
     public Symbol(String identifier) {
+        this(identifier, -1);
+    }
+
+    protected Symbol(String identifier, int id) {
         this.identifier = identifier;
+        this.id = id;
     }
 
     public TerminalSymbol asTerminal() {
-        return new TerminalSymbol(identifier);
+        return SymbolTable.TERMINALS.intern(identifier);
     }
 
     public VariableSymbol asVariable() {
-        return new VariableSymbol(identifier);
+        return SymbolTable.VARIABLES.intern(identifier);
     }
 
     public StackSymbol asStackSymbol() {
-        return new StackSymbol(identifier);
+        return SymbolTable.STACK_SYMBOLS.intern(identifier);
     }
 
     public boolean isEpsilon() {
-        return this == TerminalSymbol.EPSILON || this == StackSymbol.EPSILON || this instanceof Epsilon;
+        return TerminalSymbol.EPSILON.equals(this) || StackSymbol.EPSILON.equals(this) || this instanceof Epsilon;
     }
 
 
@@ -49,9 +61,16 @@ public abstract class Symbol {
 
     @Override
     public boolean equals(Object o) {
+        if (o == this) return true;
         if (o == null) return false;
         if (!(o.getClass() == this.getClass())) return false;
         Symbol s = (Symbol) o;
+        if (id >= 0) return s.id == id;
         return s.identifier.equals(identifier);
     }
+
+    @Override
+    public int hashCode() {
+        return id >= 0 ? id : identifier.hashCode();
+    }
 }
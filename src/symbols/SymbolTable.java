@@ -0,0 +1,182 @@
+package symbols;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Interns the symbols of one kind to canonical instances with dense int ids.
+ * <p>
+ * Every {@link TerminalSymbol}, {@link VariableSymbol} and {@link StackSymbol} receives the id of its identifier in the
+ * table of its kind on construction. Two symbols of the same kind are equal if and only if their ids are equal, so
+ * comparisons are int comparisons and ids can be used to index primitive arrays.
+ * <p>
+ * Symbols of any kind can be packed into a single int {@link #code(Symbol) code} that stores the id together with
+ * the kind of the symbol. {@link Word Words} are stored as arrays of these codes.
+ *
+ * @param <T> the kind of symbol in this table
+ * @author Matthias Harzer
+ */
+public final class SymbolTable<T extends Symbol> {
+    /**
+     * The table of all {@link TerminalSymbol TerminalSymbols}.
+     */
+    public static final SymbolTable<TerminalSymbol> TERMINALS = new SymbolTable<>(TerminalSymbol::new);
+    /**
+     * The table of all {@link VariableSymbol VariableSymbols}.
+     */
+    public static final SymbolTable<VariableSymbol> VARIABLES = new SymbolTable<>(VariableSymbol::new);
+    /**
+     * The table of all {@link StackSymbol StackSymbols}.
+     */
+    public static final SymbolTable<StackSymbol> STACK_SYMBOLS = new SymbolTable<>(StackSymbol::new);
+
+    /**
+     * The kinds of symbols a code can represent, see {@link #kind(int)}.
+     */
+    public static final int TERMINAL = 0, VARIABLE = 1, STACK_SYMBOL = 2, EPSILON = 3;
+
+    private final Function<String, T> factory;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile Symbol[] symbols = new Symbol[16];
+    private volatile String[] identifiers = new String[16];
+    private int size = 0;
+
+    private SymbolTable(Function<String, T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Returns the id of the given identifier, assigning the next free id if the identifier is new.
+     *
+     * @param identifier the identifier of the symbol
+     * @return the dense id of the identifier
+     */
+    public int id(String identifier) {
+        Integer id = ids.get(identifier);
+        if (id != null) return id;
+
+        synchronized (this) {
+            id = ids.get(identifier);
+            if (id != null) return id;
+
+            if (size == identifiers.length) {
+                identifiers = Arrays.copyOf(identifiers, size * 2);
+                symbols = Arrays.copyOf(symbols, size * 2);
+            }
+            String[] identifiers = this.identifiers;
+            identifiers[size] = identifier;
+            this.identifiers = identifiers; // publish the new entry
+            ids.put(identifier, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Returns the canonical symbol with the given identifier.
+     *
+     * @param identifier the identifier of the symbol
+     * @return the canonical symbol
+     */
+    public T intern(String identifier) {
+        return get(id(identifier));
+    }
+
+    /**
+     * Returns the canonical symbol with the given id.
+     *
+     * @param id the id of the symbol
+     * @return the canonical symbol
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int id) {
+        Symbol symbol = symbols[id];
+        if (symbol != null) return (T) symbol;
+
+        synchronized (this) {
+            Symbol[] symbols = this.symbols;
+            if (symbols[id] == null) {
+                symbols[id] = factory.apply(identifiers[id]);
+                this.symbols = symbols; // publish the new entry
+            }
+            return (T) symbols[id];
+        }
+    }
+
+    /**
+     * Returns the identifier of the symbol with the given id.
+     *
+     * @param id the id of the symbol
+     * @return the identifier of the symbol
+     */
+    public String identifier(int id) {
+        return identifiers[id];
+    }
+
+    /**
+     * Returns the number of ids that have been assigned so far. All ids are smaller than this value.
+     *
+     * @return the number of interned identifiers
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Packs a symbol into an int code that contains its kind and its id.
+     *
+     * @param symbol the symbol to pack
+     * @return the code of the symbol
+     * @throws IllegalArgumentException if the symbol is not interned in any table
+     */
+    public static int code(Symbol symbol) {
+        if (symbol instanceof Epsilon) return EPSILON;
+        if (symbol.id < 0) throw new IllegalArgumentException("Symbol '%s' is not interned".formatted(symbol));
+
+        int kind;
+        if (symbol instanceof TerminalSymbol) kind = TERMINAL;
+        else if (symbol instanceof VariableSymbol) kind = VARIABLE;
+        else if (symbol instanceof StackSymbol) kind = STACK_SYMBOL;
+        else throw new IllegalArgumentException("Symbol '%s' is not interned".formatted(symbol));
+
+        return symbol.id << 2 | kind;
+    }
+
+    /**
+     * Returns the code of the terminal symbol with the given id.
+     */
+    public static int terminalCode(int id) {
+        return id << 2 | TERMINAL;
+    }
+
+    /**
+     * Unpacks a code to its canonical symbol.
+     *
+     * @param code the code of the symbol
+     * @return the canonical symbol
+     */
+    public static Symbol symbol(int code) {
+        return switch (kind(code)) {
+            case TERMINAL -> TERMINALS.get(id(code));
+            case VARIABLE -> VARIABLES.get(id(code));
+            case STACK_SYMBOL -> STACK_SYMBOLS.get(id(code));
+            default -> Symbol.defaultEpsilon();
+        };
+    }
+
+    /**
+     * Returns the kind of the symbol with the given code, one of {@link #TERMINAL}, {@link #VARIABLE},
+     * {@link #STACK_SYMBOL} or {@link #EPSILON}.
+     */
+    public static int kind(int code) {
+        return code & 3;
+    }
+
+    /**
+     * Returns the id of the symbol with the given code in the table of its kind.
+     */
+    public static int id(int code) {
+        return code >>> 2;
+    }
+}
@@ -9,10 +9,10 @@ public class TerminalSymbol extends Symbol{
     /**
      * The TerminalSymbol representation of the epsilon symbol.
      */
-    public static final TerminalSymbol EPSILON = new TerminalSymbol("<ε>");
+    public static final TerminalSymbol EPSILON = SymbolTable.TERMINALS.intern("<ε>");
 
     public TerminalSymbol(String identifier) {
-        super(identifier);
+        super(identifier, SymbolTable.TERMINALS.id(identifier));
     }
 
 }
@@ -8,6 +8,6 @@ package symbols;
 public class VariableSymbol extends Symbol {
 
     public VariableSymbol(String identifier) {
-        super(identifier);
+        super(identifier, SymbolTable.VARIABLES.id(identifier));
     }
 }
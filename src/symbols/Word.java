@@ -1,23 +1,91 @@
 package symbols;
 
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * Represents a word of a grammar.
- * @param symbols The symbols of the word.
+ * <p>
+ * The symbols are stored as packed {@link SymbolTable#code(Symbol) symbol codes}. A word can be a view on a range of
+ * another word's codes, so taking a suffix with {@link #removeFirstAndClone()} does not copy anything.
  */
-public record Word(Symbol... symbols) {
+public final class Word {
+    private static final Word EMPTY = new Word(new int[0], 0, 0);
+
+    private final int[] codes;
+    private final int offset;
+    private final int length;
+    private int hash;
+
+    public Word(Symbol... symbols) {
+        this.codes = new int[symbols.length];
+        for (int i = 0; i < symbols.length; i++) {
+            codes[i] = SymbolTable.code(symbols[i]);
+        }
+        this.offset = 0;
+        this.length = symbols.length;
+    }
+
+    private Word(int[] codes, int offset, int length) {
+        this.codes = codes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Creates a word from packed symbol codes. The array is not copied and must not be modified afterwards.
+     *
+     * @param codes the symbol codes of the word
+     * @return the new word
+     */
+    public static Word ofCodes(int[] codes) {
+        return new Word(codes, 0, codes.length);
+    }
 
     public static Word empty() {
-        return new Word();
+        return EMPTY;
     }
 
     public int length() {
-        return symbols.length;
+        return length;
     }
 
     public boolean isEmpty() {
-        return symbols.length == 0;
+        return length == 0;
+    }
+
+    /**
+     * Returns the symbols of the word as canonical instances.
+     * @return A new array with the symbols of the word
+     */
+    public Symbol[] symbols() {
+        Symbol[] symbols = new Symbol[length];
+        for (int i = 0; i < length; i++) {
+            symbols[i] = symbolAt(i);
+        }
+        return symbols;
+    }
+
+    /**
+     * @return The symbol at the given index
+     */
+    public Symbol symbolAt(int index) {
+        return SymbolTable.symbol(codeAt(index));
+    }
+
+    /**
+     * @return The packed symbol code at the given index
+     */
+    public int codeAt(int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException(index);
+        return codes[offset + index];
+    }
+
+    /**
+     * @return The id of the terminal symbol at the given index, or -1 if the symbol is not a terminal symbol
+     */
+    public int terminalIdAt(int index) {
+        int code = codeAt(index);
+        return SymbolTable.kind(code) == SymbolTable.TERMINAL ? SymbolTable.id(code) : -1;
     }
 
     /**
@@ -27,28 +95,24 @@ public record Word(Symbol... symbols) {
     public Symbol first() {
         if (isEmpty()) return Symbol.defaultEpsilon();
 
-        return symbols[0];
+        return symbolAt(0);
     }
 
     /**
      * Remove the first symbol from the word and return it (rtl)
-     * @return A new word without the first symbol
+     * @return A new word without the first symbol, sharing the symbols of this word
      */
     public Word removeFirstAndClone() {
-        if (isEmpty()) return new Word();
-
-        Symbol[] clone = new Symbol[symbols.length - 1];
-
-        System.arraycopy(symbols, 1, clone, 0, clone.length);
+        if (isEmpty()) return EMPTY;
 
-        return new Word(clone);
+        return new Word(codes, offset + 1, length - 1);
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (Symbol s : symbols) {
-            sb.append(s);
+        for (int i = 0; i < length; i++) {
+            sb.append(symbolAt(i));
         }
         return sb.toString();
     }
@@ -56,18 +120,28 @@ public record Word(Symbol... symbols) {
 
     @Override
     public boolean equals(Object obj) {
+        if (obj == this) return true;
         if (obj == null) return false;
         if (!(obj.getClass() == this.getClass())) return false;
         Word s = (Word) obj;
-        if (s.symbols.length != symbols.length) return false;
-        for (int i = 0; i < symbols.length; i++) {
-            if (!s.symbols[i].equals(symbols[i])) return false;
+        return Arrays.equals(codes, offset, offset + length, s.codes, s.offset, s.offset + s.length);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && length > 0) {
+            h = 1;
+            for (int i = offset; i < offset + length; i++) {
+                h = 31 * h + codes[i];
+            }
+            hash = h;
         }
-        return true;
+        return h;
     }
 
     @Override
     public Word clone() {
-        return new Word(List.of(symbols).toArray(Symbol[]::new));
+        return new Word(codes, offset, length);
     }
 }